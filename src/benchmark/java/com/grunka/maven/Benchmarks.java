@@ -0,0 +1,29 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.Duration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class Benchmarks {
+    private Benchmarks() {
+    }
+
+    public static MavenRepositoryResource createResource(Path storageDirectory) {
+        Storage storage = new FileStorage(null);
+        return new MavenRepositoryResource(storageDirectory, storage, new UpstreamRouter(new LinkedHashMap<>(), Map.of(), 0), new ResourceLoader(), new MetadataGenerator(MavenRepositoryResource.HTTP_CLIENT, storage, Duration.minutes(5)));
+    }
+
+    public static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.grunka.maven;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileCacheBenchmark {
+    @Param({"1024", "1048576"})
+    public int size;
+    private Path storageDirectory;
+    private Path file;
+    private MavenRepositoryResource hitResource;
+    private MavenRepositoryResource missResource;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        storageDirectory = Files.createTempDirectory("file-cache-benchmark");
+        file = storageDirectory.resolve(MavenRepositoryResource.LOCAL).resolve("com/example/artifact/1.0/artifact-1.0.jar");
+        Files.createDirectories(file.getParent());
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Files.write(file, content);
+        hitResource = createResource();
+        hitResource.getCachedFileContent(file).join();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        missResource = createResource();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.deleteRecursively(storageDirectory);
+    }
+
+    private MavenRepositoryResource createResource() {
+        return Benchmarks.createResource(storageDirectory);
+    }
+
+    @Benchmark
+    public FileContent hit() {
+        return hitResource.getCachedFileContent(file).join();
+    }
+
+    @Benchmark
+    public FileContent miss() {
+        return missResource.getCachedFileContent(file).join();
+    }
+}
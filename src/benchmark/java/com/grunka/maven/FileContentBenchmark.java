@@ -0,0 +1,33 @@
+package com.grunka.maven;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileContentBenchmark {
+    @Param({"1024", "65536", "4194304"})
+    public int size;
+    private byte[] content;
+    private final Path path = Path.of("artifact.jar");
+    private final FileTime lastModified = FileTime.fromMillis(0);
+
+    @Setup
+    public void setup() {
+        content = new byte[size];
+        new Random(size).nextBytes(content);
+    }
+
+    @Benchmark
+    public FileContent construct() {
+        return new FileContent(path, content, lastModified);
+    }
+}
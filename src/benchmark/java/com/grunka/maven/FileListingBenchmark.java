@@ -0,0 +1,49 @@
+package com.grunka.maven;
+
+import jakarta.ws.rs.core.Response;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileListingBenchmark {
+    @Param({"100", "10000"})
+    public int width;
+    private Path storageDirectory;
+    private List<Path> directories;
+    private MavenRepositoryResource resource;
+
+    @Setup
+    public void setup() throws IOException {
+        storageDirectory = Files.createTempDirectory("file-listing-benchmark");
+        Path local = storageDirectory.resolve(MavenRepositoryResource.LOCAL).resolve("com/example");
+        Path remote = storageDirectory.resolve("central").resolve("com/example");
+        Files.createDirectories(local);
+        Files.createDirectories(remote);
+        for (int i = 0; i < width; i++) {
+            Files.createDirectories((i % 2 == 0 ? local : remote).resolve("artifact-" + i));
+            Files.createFile((i % 2 == 0 ? remote : local).resolve("file-" + i + ".pom"));
+        }
+        directories = List.of(local, remote);
+        resource = Benchmarks.createResource(storageDirectory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Benchmarks.deleteRecursively(storageDirectory);
+    }
+
+    @Benchmark
+    public Response listing() {
+        return resource.createFileListing("com/example", directories).join();
+    }
+}
@@ -0,0 +1,27 @@
+package com.grunka.maven;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotFileNameBenchmark {
+    @Param({"artifact-1.0-20230102.030405-17.jar", "artifact-1.0-20230102.030405-17-sources.jar", "artifact-1.0-SNAPSHOT.pom"})
+    public String fileName;
+    private String fileType;
+
+    @Setup
+    public void setup() {
+        fileType = fileName.substring(fileName.lastIndexOf('.'));
+    }
+
+    @Benchmark
+    public MavenRepositoryResource.SnapshotFile parse() {
+        return MavenRepositoryResource.parseSnapshotFileName(fileName, fileType);
+    }
+}
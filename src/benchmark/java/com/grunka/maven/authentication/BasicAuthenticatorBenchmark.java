@@ -0,0 +1,43 @@
+package com.grunka.maven.authentication;
+
+import io.dropwizard.auth.basic.BasicCredentials;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class BasicAuthenticatorBenchmark {
+    private BasicAuthenticator basicAuthenticator;
+    private BasicCredentials credentials;
+
+    @Setup
+    public void setup() {
+        PasswordValidator passwordValidator = new PasswordValidator(128, 500_000, 512);
+        String hash = PasswordValidator.password("password");
+        basicAuthenticator = new BasicAuthenticator(List.of((username, password) -> {
+            if ("user".equals(username) && passwordValidator.validate(password, hash)) {
+                return Optional.of(new User(username, Access.read));
+            }
+            return Optional.empty();
+        }));
+        credentials = new BasicCredentials("user", "password");
+    }
+
+    @Benchmark
+    public Optional<User> sameCredentials() {
+        return basicAuthenticator.authenticate(credentials);
+    }
+
+    @Benchmark
+    public Optional<User> equalCredentials() {
+        return basicAuthenticator.authenticate(new BasicCredentials("user", "password"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.grunka.maven.authentication;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordValidatorBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+    @Param({"plain", "mysql", "pbkdf2"})
+    public String format;
+    private PasswordValidator passwordValidator;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        passwordValidator = new PasswordValidator(128, 500_000, 512);
+        hash = switch (format) {
+            case "plain" -> PASSWORD;
+            case "mysql" -> PasswordValidator.password(PASSWORD);
+            case "pbkdf2" -> passwordValidator.createHash(PASSWORD);
+            default -> throw new IllegalArgumentException(format);
+        };
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return passwordValidator.validate(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,48 @@
+package com.grunka.maven.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyRecorder {
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentLinkedQueue<Integer>> statuses = new ConcurrentHashMap<>();
+
+    public void record(String operation, int status, long nanos) {
+        latencies.computeIfAbsent(operation, o -> new ConcurrentLinkedQueue<>()).add(nanos);
+        statuses.computeIfAbsent(operation, o -> new ConcurrentLinkedQueue<>()).add(status);
+    }
+
+    public String report(long elapsedNanos) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-12s %8s %10s %9s %9s %9s %9s  %s%n", "operation", "count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "statuses"));
+        for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : new TreeMap<>(latencies).entrySet()) {
+            List<Long> sorted = new ArrayList<>(entry.getValue());
+            sorted.sort(null);
+            Map<Integer, Integer> statusCounts = new TreeMap<>();
+            statuses.get(entry.getKey()).forEach(status -> statusCounts.merge(status, 1, Integer::sum));
+            report.append(String.format("%-12s %8d %10.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    entry.getKey(),
+                    sorted.size(),
+                    sorted.size() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1)),
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.90),
+                    percentile(sorted, 0.99),
+                    percentile(sorted, 1.0),
+                    statusCounts));
+        }
+        return report.toString();
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
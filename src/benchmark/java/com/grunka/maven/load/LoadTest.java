@@ -0,0 +1,187 @@
+package com.grunka.maven.load;
+
+import com.grunka.maven.MavenRepositoryApplication;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LoadTest {
+    private final Namespace options;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final AtomicInteger buildNumber = new AtomicInteger();
+    private URI repository;
+
+    private LoadTest(Namespace options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ArgumentParser parser = ArgumentParsers.newFor("load-test").build()
+                .description("Starts the repository against stub upstream repositories and drives resolver-like traffic at it");
+        parser.addArgument("--remotes").type(Integer.class).setDefault(1).help("Number of stub remote repositories");
+        parser.addArgument("--latency").type(Integer.class).setDefault(50).help("Stub remote latency in milliseconds");
+        parser.addArgument("--not-found-ratio").type(Double.class).setDefault(0.1).help("Ratio of artifacts each stub remote does not have");
+        parser.addArgument("--failure-ratio").type(Double.class).setDefault(0.0).help("Ratio of stub remote requests failing with 500");
+        parser.addArgument("--artifact-size").type(Integer.class).setDefault(64 * 1024).help("Size in bytes of stub jar files");
+        parser.addArgument("--artifacts").type(Integer.class).setDefault(500).help("Number of distinct artifacts requested");
+        parser.addArgument("--clients").type(Integer.class).setDefault(32).help("Number of concurrent clients");
+        parser.addArgument("--duration").type(Integer.class).setDefault(30).help("Test duration in seconds");
+        parser.addArgument("--head-ratio").type(Double.class).setDefault(0.2).help("Ratio of artifact requests made as HEAD");
+        parser.addArgument("--deploy-ratio").type(Double.class).setDefault(0.02).help("Ratio of client iterations that deploy a snapshot");
+        try {
+            new LoadTest(parser.parseArgs(args)).run();
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        List<StubRepository> remotes = new ArrayList<>();
+        for (int i = 0; i < options.getInt("remotes"); i++) {
+            remotes.add(new StubRepository(Duration.ofMillis(options.getInt("latency")), options.getDouble("not_found_ratio"), options.getDouble("failure_ratio"), options.getInt("artifact_size")));
+        }
+        Path storageDirectory = Files.createTempDirectory("load-test-storage");
+        int port = freePort();
+        Path configuration = writeConfiguration(storageDirectory, port, remotes);
+        new MavenRepositoryApplication().run("server", configuration.toString());
+        repository = URI.create("http://127.0.0.1:" + port + "/repository/");
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long gcCountBefore = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+        long gcTimeBefore = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long allocatedBefore = allocatedBytes();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.getInt("duration"));
+        ExecutorService clients = Executors.newFixedThreadPool(options.getInt("clients"));
+        for (int i = 0; i < options.getInt("clients"); i++) {
+            clients.submit(() -> {
+                while (System.nanoTime() < end) {
+                    if (ThreadLocalRandom.current().nextDouble() < options.getDouble("deploy_ratio")) {
+                        deploySnapshot();
+                    } else {
+                        resolveArtifact();
+                    }
+                }
+                return null;
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(options.getInt("duration") + 60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        long gcCount = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum() - gcCountBefore;
+        long gcTime = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum() - gcTimeBefore;
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        System.out.println(recorder.report(elapsed));
+        System.out.printf("upstream requests: %d%n", remotes.stream().mapToLong(StubRepository::requests).sum());
+        System.out.printf("gc: %d collections, %d ms%n", gcCount, gcTime);
+        System.out.printf("peak heap: %.1f MB%n", peakHeap / 1024.0 / 1024.0);
+        System.out.printf("allocated by live threads: %.1f MB%n", (allocatedBytes() - allocatedBefore) / 1024.0 / 1024.0);
+        remotes.forEach(StubRepository::close);
+    }
+
+    private void resolveArtifact() throws InterruptedException {
+        double skew = ThreadLocalRandom.current().nextDouble();
+        int artifact = (int) (options.getInt("artifacts") * skew * skew);
+        String base = "com/example/load/artifact-" + artifact + "/1.0/artifact-" + artifact + "-1.0";
+        boolean head = ThreadLocalRandom.current().nextDouble() < options.getDouble("head_ratio");
+        for (String extension : List.of(".pom", ".jar")) {
+            if (head) {
+                send("HEAD", base + extension, HttpRequest.newBuilder().method("HEAD", HttpRequest.BodyPublishers.noBody()));
+            }
+            send("GET", base + extension, HttpRequest.newBuilder().GET());
+            send("GET sha1", base + extension + ".sha1", HttpRequest.newBuilder().GET());
+        }
+    }
+
+    private void deploySnapshot() throws InterruptedException {
+        int artifact = ThreadLocalRandom.current().nextInt(10);
+        LocalTime time = LocalTime.ofSecondOfDay(ThreadLocalRandom.current().nextInt(24 * 60 * 60));
+        String timestamp = "20230101." + time.format(DateTimeFormatter.ofPattern("HHmmss")) + "-" + buildNumber.incrementAndGet();
+        String base = "com/example/load/deploy-" + artifact + "/1.0-SNAPSHOT/deploy-" + artifact + "-1.0-" + timestamp;
+        byte[] jar = new byte[options.getInt("artifact_size")];
+        ThreadLocalRandom.current().nextBytes(jar);
+        byte[] pom = "<project><modelVersion>4.0.0</modelVersion></project>".getBytes(StandardCharsets.UTF_8);
+        send("PUT", base + ".pom", HttpRequest.newBuilder().PUT(HttpRequest.BodyPublishers.ofByteArray(pom)));
+        send("PUT", base + ".jar", HttpRequest.newBuilder().PUT(HttpRequest.BodyPublishers.ofByteArray(jar)));
+    }
+
+    private void send(String operation, String path, HttpRequest.Builder builder) throws InterruptedException {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = httpClient.send(builder.uri(repository.resolve(path)).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        }
+        recorder.record(operation, status, System.nanoTime() - start);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return Arrays.stream(threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())).filter(bytes -> bytes > 0).sum();
+    }
+
+    private static Path writeConfiguration(Path storageDirectory, int port, List<StubRepository> remotes) throws IOException {
+        StringBuilder configuration = new StringBuilder()
+                .append("server:\n")
+                .append("  applicationConnectors:\n")
+                .append("    - type: http\n")
+                .append("      port: ").append(port).append("\n")
+                .append("  adminConnectors: []\n")
+                .append("  requestLog:\n")
+                .append("    appenders: []\n")
+                .append("logging:\n")
+                .append("  level: WARN\n")
+                .append("storageDirectory: ").append(storageDirectory).append("\n")
+                .append("defaultAccess: write\n")
+                .append("remoteRepositories:\n");
+        for (int i = 0; i < remotes.size(); i++) {
+            configuration.append("  stub-").append(i).append(":\n")
+                    .append("    url: ").append(remotes.get(i).url()).append("\n");
+        }
+        Path file = Files.createTempFile("load-test", ".yml");
+        Files.writeString(file, configuration);
+        return file;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
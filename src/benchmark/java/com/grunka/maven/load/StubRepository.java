@@ -0,0 +1,111 @@
+package com.grunka.maven.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StubRepository implements AutoCloseable {
+    private static final String LAST_MODIFIED = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.parse("2023-01-01T00:00:00Z").atZone(ZoneId.of("UTC")));
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final double notFoundRatio;
+    private final double failureRatio;
+    private final int artifactSize;
+    private final LongAdder requests = new LongAdder();
+
+    public StubRepository(Duration latency, double notFoundRatio, double failureRatio, int artifactSize) throws IOException {
+        this.latency = latency;
+        this.notFoundRatio = notFoundRatio;
+        this.failureRatio = failureRatio;
+        this.artifactSize = artifactSize;
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public URI url() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (ThreadLocalRandom.current().nextDouble() < failureRatio) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            String artifactPath = path.replaceAll("\\.(sha1|md5)$", "");
+            if (new Random(artifactPath.hashCode()).nextDouble() < notFoundRatio || !(artifactPath.endsWith(".jar") || artifactPath.endsWith(".pom"))) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] content = content(artifactPath);
+            if (path.endsWith(".sha1")) {
+                content = digest("SHA-1", content);
+            } else if (path.endsWith(".md5")) {
+                content = digest("MD5", content);
+            }
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+            boolean head = "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(200, head ? -1 : content.length);
+            if (!head) {
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(content);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] content(String path) {
+        if (path.endsWith(".pom")) {
+            return ("<project><modelVersion>4.0.0</modelVersion><!-- " + path + " --></project>").getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] content = new byte[artifactSize];
+        new Random(path.hashCode()).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(algorithm).digest(content)).getBytes(StandardCharsets.UTF_8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
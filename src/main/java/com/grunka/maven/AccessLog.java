@@ -0,0 +1,167 @@
+package com.grunka.maven;
+
+import com.grunka.maven.authentication.Access;
+import com.grunka.maven.authentication.User;
+import io.dropwizard.lifecycle.Managed;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 2)
+public class AccessLog implements ContainerRequestFilter, ContainerResponseFilter, Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(AccessLog.class);
+    static final String CACHE_HEADER = "X-Cache";
+    private static final int MAGIC = 0x4d52414c;
+    private static final int VERSION = 1;
+    private static final String START_PROPERTY = AccessLog.class.getName() + ".start";
+    private static final List<String> METHODS = List.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT, HttpMethod.POST, HttpMethod.OPTIONS, HttpMethod.DELETE);
+    private final Path file;
+    private DataOutputStream output;
+
+    public enum Source {
+        unknown, local, remote
+    }
+
+    public record Entry(long timestamp, String method, String path, Access access, int status, long bytes, long latencyMicros, Source source) {
+    }
+
+    public AccessLog(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void start() throws IOException {
+        boolean isNew = !Files.exists(file) || Files.size(file) == 0;
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024));
+        if (isNew) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+        }
+        LOG.info("Recording access log to {}", file);
+    }
+
+    @Override
+    public synchronized void stop() throws IOException {
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+
+    public synchronized void flush() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.flush();
+        } catch (IOException e) {
+            LOG.error("Failed to flush access log {}", file, e);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        request.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object start = request.getProperty(START_PROPERTY);
+        String path = request.getUriInfo().getPath(false);
+        if (!(start instanceof Long startNanos) || !path.startsWith("repository")) {
+            return;
+        }
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        Principal principal = request.getSecurityContext() != null ? request.getSecurityContext().getUserPrincipal() : null;
+        Access access = principal instanceof User user ? user.getAccess() : null;
+        String cache = response.getHeaderString(CACHE_HEADER);
+        Source source = cache == null ? Source.unknown : "HIT".equals(cache) ? Source.local : Source.remote;
+        long bytes;
+        if (response.getEntity() instanceof byte[] content) {
+            bytes = content.length;
+        } else if (response.getEntity() instanceof String content) {
+            bytes = content.getBytes(StandardCharsets.UTF_8).length;
+        } else {
+            bytes = Math.max(0, response.getLength());
+        }
+        write(new Entry(System.currentTimeMillis(), request.getMethod(), path.substring("repository".length()), access, response.getStatus(), bytes, latencyMicros, source));
+    }
+
+    private synchronized void write(Entry entry) {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.writeLong(entry.timestamp());
+            output.writeByte(METHODS.indexOf(entry.method()));
+            output.writeUTF(entry.path());
+            output.writeByte(entry.access() == null ? -1 : entry.access().ordinal());
+            output.writeShort(entry.status());
+            output.writeLong(entry.bytes());
+            output.writeInt((int) Math.min(Integer.MAX_VALUE, entry.latencyMicros()));
+            output.writeByte(entry.source().ordinal());
+        } catch (IOException e) {
+            LOG.error("Failed to write access log entry for {}", entry.path(), e);
+        }
+    }
+
+    public static void read(Path file, Consumer<Entry> consumer) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException(file + " is not an access log");
+            }
+            int version = input.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported access log version " + version);
+            }
+            while (true) {
+                long timestamp;
+                try {
+                    timestamp = input.readLong();
+                } catch (EOFException e) {
+                    return;
+                }
+                int method = input.readByte();
+                String path = input.readUTF();
+                int access = input.readByte();
+                int status = input.readUnsignedShort();
+                long bytes = input.readLong();
+                long latencyMicros = input.readInt();
+                Source source = Source.values()[input.readByte()];
+                consumer.accept(new Entry(
+                        timestamp,
+                        method < 0 ? "UNKNOWN" : METHODS.get(method),
+                        path,
+                        access < 0 ? null : Access.values()[access],
+                        status,
+                        bytes,
+                        latencyMicros,
+                        source
+                ));
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.grunka.maven;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.core.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AccessLogReplay {
+    private static final Logger LOG = LoggerFactory.getLogger(AccessLogReplay.class);
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final URI repositoryUrl;
+    private final double speed;
+    private final String authorization;
+    private final int maxConcurrency;
+    private final Semaphore concurrency;
+    private final List<Long> originalLatencies = new ArrayList<>();
+    private final List<Long> replayedLatencies = new ArrayList<>();
+    private final Map<String, LongAdder> statusChanges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> sourceChanges = new ConcurrentHashMap<>();
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder replayedBytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private long skipped = 0;
+    private long replayed = 0;
+
+    public AccessLogReplay(URI baseUrl, double speed, int concurrency, String username, String password) {
+        this.repositoryUrl = baseUrl.resolve("/repository");
+        this.speed = speed;
+        this.maxConcurrency = concurrency;
+        this.concurrency = new Semaphore(concurrency);
+        if (username != null && password != null) {
+            this.authorization = "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        } else {
+            this.authorization = null;
+        }
+    }
+
+    public String replay(Path file) throws IOException {
+        long[] firstTimestamp = {-1};
+        long replayStart = System.nanoTime();
+        AccessLog.read(file, entry -> {
+            if (!HttpMethod.GET.equals(entry.method()) && !HttpMethod.HEAD.equals(entry.method())) {
+                skipped++;
+                return;
+            }
+            if (firstTimestamp[0] < 0) {
+                firstTimestamp[0] = entry.timestamp();
+            }
+            if (speed > 0) {
+                long dueNanos = replayStart + (long) (TimeUnit.MILLISECONDS.toNanos(entry.timestamp() - firstTimestamp[0]) / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted during replay", e);
+                    }
+                }
+            }
+            concurrency.acquireUninterruptibly();
+            replayed++;
+            send(entry).whenComplete((v, t) -> concurrency.release());
+        });
+        concurrency.acquireUninterruptibly(maxConcurrency);
+        concurrency.release(maxConcurrency);
+        return report(System.nanoTime() - replayStart);
+    }
+
+    private CompletableFuture<Void> send(AccessLog.Entry entry) {
+        URI uri;
+        try {
+            uri = URI.create(repositoryUrl + entry.path());
+        } catch (IllegalArgumentException e) {
+            LOG.error("Could not replay {} {}", entry.method(), entry.path(), e);
+            failures.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(uri)
+                .method(entry.method(), HttpRequest.BodyPublishers.noBody());
+        if (authorization != null) {
+            builder = builder.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        long start = System.nanoTime();
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, throwable) -> {
+                    long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                    if (throwable != null) {
+                        LOG.error("Failed to replay {} {}", entry.method(), entry.path(), throwable);
+                        failures.increment();
+                        return null;
+                    }
+                    String cache = response.headers().firstValue(AccessLog.CACHE_HEADER).orElse(null);
+                    AccessLog.Source source = cache == null ? AccessLog.Source.unknown : "HIT".equals(cache) ? AccessLog.Source.local : AccessLog.Source.remote;
+                    synchronized (this) {
+                        originalLatencies.add(entry.latencyMicros());
+                        replayedLatencies.add(latencyMicros);
+                    }
+                    statusChanges.computeIfAbsent(entry.status() + " -> " + response.statusCode(), k -> new LongAdder()).increment();
+                    sourceChanges.computeIfAbsent(entry.source() + " -> " + source, k -> new LongAdder()).increment();
+                    originalBytes.add(entry.bytes());
+                    replayedBytes.add(response.body().length);
+                    return null;
+                });
+    }
+
+    private synchronized String report(long elapsedNanos) {
+        originalLatencies.sort(null);
+        replayedLatencies.sort(null);
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("replayed %d requests in %.1f s, skipped %d non GET/HEAD, %d failed%n", replayed, elapsedNanos / 1e9, skipped, failures.sum()));
+        report.append(String.format("%-10s %12s %12s %12s%n", "latency", "original ms", "replayed ms", "delta ms"));
+        for (double percentile : new double[]{0.5, 0.9, 0.99, 1.0}) {
+            double original = percentile(originalLatencies, percentile);
+            double replayedLatency = percentile(replayedLatencies, percentile);
+            report.append(String.format("%-10s %12.2f %12.2f %+12.2f%n", "p" + (percentile * 100), original, replayedLatency, replayedLatency - original));
+        }
+        report.append(String.format("bytes: original %d, replayed %d%n", originalBytes.sum(), replayedBytes.sum()));
+        report.append("status (original -> replayed): ").append(counts(statusChanges)).append('\n');
+        report.append("source (original -> replayed): ").append(counts(sourceChanges)).append('\n');
+        return report.toString();
+    }
+
+    private static Map<String, Long> counts(Map<String, LongAdder> counters) {
+        Map<String, Long> counts = new TreeMap<>();
+        counters.forEach((key, counter) -> counts.put(key, counter.sum()));
+        return counts;
+    }
+
+    private static double percentile(List<Long> sortedMicros, double percentile) {
+        if (sortedMicros.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedMicros.size()) - 1;
+        return sortedMicros.get(Math.max(0, index)) / 1000.0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class AdmissionConfiguration {
+    public boolean enabled = false;
+    @Min(1)
+    public int maxInFlight = 1000;
+    @NotNull
+    public DataSize maxBufferedBytes = DataSize.mebibytes(256);
+    @Min(1)
+    public int maxUpstreamDownloads = 64;
+    @NotNull
+    public Duration retryAfter = Duration.seconds(5);
+}
@@ -0,0 +1,122 @@
+package com.grunka.maven;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheck;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdmissionController extends HealthCheck {
+    private final int maxInFlight;
+    private final long maxBufferedBytes;
+    private final int maxUpstreamDownloads;
+    private final long retryAfterSeconds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicInteger upstreamDownloads = new AtomicInteger();
+    private final Map<Priority, Meter> rejected = new EnumMap<>(Priority.class);
+
+    public enum Priority {
+        hit(Double.POSITIVE_INFINITY, false),
+        deploy(1.0, false),
+        miss(0.9, true),
+        prefetch(0.5, true);
+
+        private final double limitFraction;
+        private final boolean upstream;
+
+        Priority(double limitFraction, boolean upstream) {
+            this.limitFraction = limitFraction;
+            this.upstream = upstream;
+        }
+    }
+
+    public interface Ticket extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public AdmissionController(AdmissionConfiguration configuration, MetricRegistry metricRegistry) {
+        this.maxInFlight = configuration.maxInFlight;
+        this.maxBufferedBytes = configuration.maxBufferedBytes.toBytes();
+        this.maxUpstreamDownloads = configuration.maxUpstreamDownloads;
+        this.retryAfterSeconds = Math.max(1, configuration.retryAfter.toSeconds());
+        metricRegistry.register("admission.inFlight", (Gauge<Integer>) inFlight::get);
+        metricRegistry.register("admission.bufferedBytes", (Gauge<Long>) bufferedBytes::get);
+        metricRegistry.register("admission.upstreamDownloads", (Gauge<Integer>) upstreamDownloads::get);
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, metricRegistry.meter(MetricRegistry.name("admission", "rejected", priority.name())));
+        }
+    }
+
+    public Optional<Ticket> admit(Priority priority, long bytes) {
+        int requests = inFlight.incrementAndGet();
+        long buffered = bufferedBytes.addAndGet(bytes);
+        int upstream = priority.upstream ? upstreamDownloads.incrementAndGet() : 0;
+        Ticket ticket = ticket(priority, bytes);
+        if (exceeds(requests, maxInFlight, priority) || exceeds(buffered, maxBufferedBytes, priority) || exceeds(upstream, maxUpstreamDownloads, priority)) {
+            ticket.close();
+            rejected.get(priority).mark();
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    private static boolean exceeds(long value, long max, Priority priority) {
+        if (Double.isInfinite(priority.limitFraction)) {
+            return false;
+        }
+        return value > Math.max(1, (long) (max * priority.limitFraction));
+    }
+
+    public Ticket buffered(long bytes) {
+        bufferedBytes.addAndGet(bytes);
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                bufferedBytes.addAndGet(-bytes);
+            }
+        };
+    }
+
+    private Ticket ticket(Priority priority, long bytes) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                bufferedBytes.addAndGet(-bytes);
+                if (priority.upstream) {
+                    upstreamDownloads.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    public Response overloaded() {
+        return Response
+                .status(Response.Status.SERVICE_UNAVAILABLE)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .entity("Server is overloaded, try again later")
+                .build();
+    }
+
+    @Override
+    protected Result check() {
+        String state = String.format("%d of %d requests in flight, %d of %d bytes buffered, %d of %d upstream downloads",
+                inFlight.get(), maxInFlight, bufferedBytes.get(), maxBufferedBytes, upstreamDownloads.get(), maxUpstreamDownloads);
+        if (inFlight.get() >= maxInFlight || bufferedBytes.get() >= maxBufferedBytes || upstreamDownloads.get() >= maxUpstreamDownloads) {
+            return Result.unhealthy("Overloaded, " + state);
+        }
+        return Result.healthy(state);
+    }
+}
@@ -0,0 +1,180 @@
+package com.grunka.maven;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class ArtifactPath {
+    private static final int MAX_CACHED = 10_000;
+    private static final String SNAPSHOT = "-SNAPSHOT";
+    private static final Map<String, ArtifactPath> CACHE = new ConcurrentHashMap<>();
+    private static final AtomicBoolean EVICTING = new AtomicBoolean();
+    private final String path;
+    private final String fileName;
+    private final String groupPath;
+    private final String groupId;
+    private final String artifactId;
+    private final String version;
+    private final String classifier;
+    private final String extension;
+    private final String checksum;
+    private final boolean snapshot;
+    private final boolean metadata;
+    private final Map<Path, Path> resolved = new ConcurrentHashMap<>(4);
+
+    private ArtifactPath(String path) {
+        this.path = path;
+        String[] segments = path.split("/");
+        if (!path.isEmpty()) {
+            for (String segment : segments) {
+                if (segment.isEmpty() || segment.equals(".") || segment.equals("..") || segment.indexOf('\\') >= 0) {
+                    throw new IllegalArgumentException("Invalid path " + path);
+                }
+            }
+        }
+        int names = segments.length;
+        String name = segments[names - 1];
+        this.fileName = name;
+        String checksumSuffix = null;
+        for (String suffix : FileContent.CHECKSUM_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                checksumSuffix = suffix;
+                name = name.substring(0, name.length() - suffix.length());
+                break;
+            }
+        }
+        this.checksum = checksumSuffix;
+        this.metadata = name.equals(MetadataGenerator.MAVEN_METADATA);
+        boolean snapshotMetadata = metadata && names >= 3 && segments[names - 2].endsWith(SNAPSHOT);
+        int groupNames = snapshotMetadata || !metadata ? names - 3 : names - 2;
+        this.groupPath = groupNames < 1 ? null : String.join("/", Arrays.asList(segments).subList(0, groupNames)).intern();
+        String versionName = null;
+        String artifactName = null;
+        int groupIdNames = 0;
+        if (snapshotMetadata) {
+            versionName = segments[names - 2];
+            artifactName = segments[names - 3];
+            groupIdNames = names - 3;
+        } else if (metadata && names >= 2) {
+            artifactName = segments[names - 2];
+            groupIdNames = names - 2;
+        } else if (!metadata && names >= 4) {
+            versionName = segments[names - 2];
+            artifactName = segments[names - 3];
+            groupIdNames = names - 3;
+        }
+        this.groupId = groupIdNames < 1 ? null : String.join(".", Arrays.asList(segments).subList(0, groupIdNames)).intern();
+        this.artifactId = artifactName == null ? null : artifactName.intern();
+        this.version = versionName == null ? null : versionName.intern();
+        this.snapshot = version != null && version.endsWith(SNAPSHOT);
+        int lastDot = name.lastIndexOf('.');
+        this.extension = metadata || lastDot < 0 ? null : name.substring(lastDot + 1).intern();
+        String classifierName = null;
+        if (!metadata && artifactId != null && lastDot > 0) {
+            String prefix = artifactId + "-" + (snapshot ? version.substring(0, version.length() - "SNAPSHOT".length()) : version);
+            if (name.startsWith(prefix)) {
+                String rest = name.substring(prefix.length(), lastDot);
+                if (snapshot) {
+                    int dash = rest.startsWith("SNAPSHOT") ? "SNAPSHOT".length() : rest.indexOf('-', rest.indexOf('-') + 1);
+                    rest = dash < 0 ? "" : rest.substring(dash);
+                }
+                if (rest.startsWith("-") && rest.length() > 1) {
+                    classifierName = rest.substring(1);
+                }
+            }
+        }
+        this.classifier = classifierName == null ? null : classifierName.intern();
+    }
+
+    public static ArtifactPath parse(String path) {
+        String normalized = path.startsWith("/") ? path.substring(1) : path;
+        ArtifactPath artifactPath = CACHE.get(normalized);
+        if (artifactPath == null) {
+            artifactPath = new ArtifactPath(normalized);
+            if (CACHE.putIfAbsent(normalized, artifactPath) == null && CACHE.size() > MAX_CACHED) {
+                evict();
+            }
+        }
+        return artifactPath;
+    }
+
+    private static void evict() {
+        if (!EVICTING.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<String> paths = CACHE.keySet().iterator();
+            while (CACHE.size() > MAX_CACHED - MAX_CACHED / 10 && paths.hasNext()) {
+                paths.next();
+                paths.remove();
+            }
+        } finally {
+            EVICTING.set(false);
+        }
+    }
+
+    Path resolve(Path repositoryDirectory) {
+        Path resolvedPath = resolved.get(repositoryDirectory);
+        if (resolvedPath == null) {
+            resolvedPath = repositoryDirectory.resolve(path).normalize();
+            resolved.put(repositoryDirectory, resolvedPath);
+        }
+        return resolvedPath;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String fileName() {
+        return fileName;
+    }
+
+    public String groupPath() {
+        return groupPath;
+    }
+
+    public String groupId() {
+        return groupId;
+    }
+
+    public String artifactId() {
+        return artifactId;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public String classifier() {
+        return classifier;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String checksum() {
+        return checksum;
+    }
+
+    public boolean snapshot() {
+        return snapshot;
+    }
+
+    public boolean metadata() {
+        return metadata;
+    }
+
+    public ArtifactPath withoutChecksum() {
+        return checksum == null ? this : parse(path.substring(0, path.length() - checksum.length()));
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
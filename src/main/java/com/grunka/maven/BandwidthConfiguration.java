@@ -0,0 +1,29 @@
+package com.grunka.maven;
+
+import com.grunka.maven.authentication.Access;
+import io.dropwizard.util.DataSize;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class BandwidthConfiguration {
+    public boolean enabled = false;
+    public DataSize totalBytesPerSecond = null;
+    @NotNull
+    public DataSize chunkSize = DataSize.kibibytes(64);
+    @Valid
+    @NotNull
+    public Map<Access, Limits> accessLevels = new HashMap<>();
+    @Valid
+    @NotNull
+    public Map<String, Limits> users = new HashMap<>();
+
+    public static class Limits {
+        public DataSize bytesPerSecond = null;
+        @Min(0)
+        public int maxConcurrentDownloads = 0;
+    }
+}
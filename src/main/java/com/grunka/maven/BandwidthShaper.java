@@ -0,0 +1,245 @@
+package com.grunka.maven;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.grunka.maven.authentication.Access;
+import com.grunka.maven.authentication.User;
+import io.dropwizard.lifecycle.Managed;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.glassfish.jersey.server.CloseableService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BandwidthShaper implements Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(BandwidthShaper.class);
+    private final BandwidthConfiguration configuration;
+    private final int chunkSize;
+    private final TokenBucket total;
+    private final Map<String, UserState> users = new ConcurrentHashMap<>();
+    private final Map<Access, Metrics> metrics = new EnumMap<>(Access.class);
+    private final Map<String, ArrayDeque<Turn>> waiting = new HashMap<>();
+    private final ArrayDeque<String> turns = new ArrayDeque<>();
+    private Thread dispatcher;
+
+    private record UserState(Access access, TokenBucket bucket, Semaphore downloads) {
+    }
+
+    private record Turn(long bytes, CountDownLatch granted) {
+    }
+
+    private record Metrics(Meter bytes, Counter active, Meter rejected, Timer throttled) {
+    }
+
+    private static class TokenBucket {
+        private final double nanosPerByte;
+        private final long burstNanos;
+        private final AtomicLong nextFree = new AtomicLong(System.nanoTime());
+
+        private TokenBucket(long bytesPerSecond) {
+            this.nanosPerByte = (double) TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+            this.burstNanos = TimeUnit.SECONDS.toNanos(1);
+        }
+
+        private void acquire(long bytes) throws InterruptedException {
+            long now = System.nanoTime();
+            long cost = (long) (bytes * nanosPerByte);
+            long start = nextFree.getAndAccumulate(now, (next, current) -> Math.max(next, current - burstNanos) + cost);
+            long waitNanos = Math.max(start, now - burstNanos) - now;
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+
+    public BandwidthShaper(BandwidthConfiguration configuration, MetricRegistry metricRegistry) {
+        this.configuration = configuration;
+        this.chunkSize = (int) configuration.chunkSize.toBytes();
+        this.total = configuration.totalBytesPerSecond == null ? null : new TokenBucket(configuration.totalBytesPerSecond.toBytes());
+        for (Access access : Access.values()) {
+            String prefix = MetricRegistry.name("bandwidth", access.name());
+            metrics.put(access, new Metrics(
+                    metricRegistry.meter(MetricRegistry.name(prefix, "bytes")),
+                    metricRegistry.counter(MetricRegistry.name(prefix, "activeDownloads")),
+                    metricRegistry.meter(MetricRegistry.name(prefix, "rejected")),
+                    metricRegistry.timer(MetricRegistry.name(prefix, "throttled"))));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (total != null) {
+            dispatcher = new Thread(this::dispatch, "bandwidth-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    private UserState userState(User user) {
+        return users.computeIfAbsent(user.getName(), name -> {
+            BandwidthConfiguration.Limits limits = configuration.users.getOrDefault(name, configuration.accessLevels.get(user.getAccess()));
+            TokenBucket bucket = limits == null || limits.bytesPerSecond == null ? null : new TokenBucket(limits.bytesPerSecond.toBytes());
+            Semaphore downloads = limits == null || limits.maxConcurrentDownloads == 0 ? null : new Semaphore(limits.maxConcurrentDownloads);
+            return new UserState(user.getAccess(), bucket, downloads);
+        });
+    }
+
+    Response shape(User user, Response response, CloseableService closeables) {
+        Object entity = response.getEntity();
+        if (!(entity instanceof byte[]) && !(entity instanceof StreamingOutput)) {
+            return response;
+        }
+        UserState state = userState(user);
+        Metrics userMetrics = metrics.get(state.access());
+        if (state.downloads() != null && !state.downloads().tryAcquire()) {
+            userMetrics.rejected().mark();
+            LOG.debug("User {} is over the concurrent download limit", user.getName());
+            return Response
+                    .status(Response.Status.TOO_MANY_REQUESTS)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .entity("Too many concurrent downloads")
+                    .build();
+        }
+        userMetrics.active().inc();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                userMetrics.active().dec();
+                if (state.downloads() != null) {
+                    state.downloads().release();
+                }
+            }
+        };
+        if (!closeables.add(release::run)) {
+            release.run();
+            return response;
+        }
+        StreamingOutput output = outputStream -> {
+            ShapedOutputStream shaped = new ShapedOutputStream(outputStream, user.getName(), state, userMetrics);
+            try {
+                if (entity instanceof byte[] content) {
+                    shaped.write(content);
+                } else {
+                    BufferedOutputStream buffered = new BufferedOutputStream(shaped, chunkSize);
+                    ((StreamingOutput) entity).write(buffered);
+                    buffered.flush();
+                }
+            } finally {
+                userMetrics.throttled().update(shaped.throttledNanos, TimeUnit.NANOSECONDS);
+                release.run();
+            }
+        };
+        Response.ResponseBuilder shapedResponse = Response.fromResponse(response).entity(output);
+        if (entity instanceof byte[] content) {
+            shapedResponse.header(HttpHeaders.CONTENT_LENGTH, content.length);
+        }
+        return shapedResponse.build();
+    }
+
+    private class ShapedOutputStream extends FilterOutputStream {
+        private final String user;
+        private final UserState state;
+        private final Metrics userMetrics;
+        private long throttledNanos = 0;
+
+        private ShapedOutputStream(OutputStream output, String user, UserState state, Metrics userMetrics) {
+            super(output);
+            this.user = user;
+            this.state = state;
+            this.userMetrics = userMetrics;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            try {
+                for (int position = offset; position < offset + length; position += chunkSize) {
+                    int chunk = Math.min(chunkSize, offset + length - position);
+                    long waitStart = System.nanoTime();
+                    if (state.bucket() != null) {
+                        state.bucket().acquire(chunk);
+                    }
+                    if (total != null) {
+                        awaitTurn(user, chunk);
+                    }
+                    throttledNanos += System.nanoTime() - waitStart;
+                    out.write(bytes, position, chunk);
+                    userMetrics.bytes().mark(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttling download");
+            }
+        }
+    }
+
+    private void awaitTurn(String user, long bytes) throws InterruptedException {
+        Turn turn = new Turn(bytes, new CountDownLatch(1));
+        synchronized (this) {
+            ArrayDeque<Turn> queue = waiting.computeIfAbsent(user, u -> new ArrayDeque<>());
+            if (queue.isEmpty()) {
+                turns.add(user);
+            }
+            queue.add(turn);
+            notifyAll();
+        }
+        turn.granted().await();
+    }
+
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Turn turn;
+                synchronized (this) {
+                    while (turns.isEmpty()) {
+                        wait();
+                    }
+                    String user = turns.poll();
+                    ArrayDeque<Turn> queue = waiting.get(user);
+                    turn = queue.poll();
+                    if (queue.isEmpty()) {
+                        waiting.remove(user);
+                    } else {
+                        turns.add(user);
+                    }
+                }
+                total.acquire(turn.bytes());
+                turn.granted().countDown();
+            }
+        } catch (InterruptedException e) {
+            LOG.debug("Bandwidth dispatcher stopped");
+        }
+    }
+}
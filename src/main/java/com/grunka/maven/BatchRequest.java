@@ -0,0 +1,9 @@
+package com.grunka.maven;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchRequest(@NotNull @Size(max = 1000) List<String> artifacts) {
+}
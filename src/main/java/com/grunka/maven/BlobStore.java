@@ -0,0 +1,88 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class BlobStore {
+    private static final Logger LOG = LoggerFactory.getLogger(BlobStore.class);
+    private static final Duration SWEEP_GRACE_PERIOD = Duration.ofHours(1);
+    private final Path blobDirectory;
+
+    public BlobStore(Path blobDirectory) {
+        this.blobDirectory = blobDirectory;
+    }
+
+    public void write(Path target, byte[] content, FileTime lastModified) throws IOException {
+        String sha256 = FileContent.digest("SHA-256", content);
+        Path blob = blobDirectory.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256 + "-" + lastModified.toMillis());
+        if (!Files.exists(blob)) {
+            writeBlob(blob, content, lastModified);
+        }
+        Files.createDirectories(target.getParent());
+        Path temporaryLink = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createLink(temporaryLink, blob);
+        } catch (NoSuchFileException e) {
+            writeBlob(blob, content, lastModified);
+            Files.createLink(temporaryLink, blob);
+        }
+        try {
+            Files.move(temporaryLink, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryLink);
+        }
+        LOG.debug("Linked {} to blob {}", target, sha256);
+    }
+
+    private static void writeBlob(Path blob, byte[] content, FileTime lastModified) throws IOException {
+        Files.createDirectories(blob.getParent());
+        Path temporaryBlob = Files.createTempFile(blob.getParent(), blob.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryBlob, content);
+            Files.setLastModifiedTime(temporaryBlob, lastModified);
+            Files.move(temporaryBlob, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryBlob);
+        }
+    }
+
+    public void sweep() {
+        if (!Files.isDirectory(blobDirectory)) {
+            return;
+        }
+        FileTime changedBefore = FileTime.from(Instant.now().minus(SWEEP_GRACE_PERIOD));
+        long deletedBlobs = 0;
+        long deletedBytes = 0;
+        try (Stream<Path> files = Files.walk(blobDirectory)) {
+            for (Path blob : files.filter(Files::isRegularFile).toList()) {
+                try {
+                    int links = (Integer) Files.getAttribute(blob, "unix:nlink");
+                    FileTime changed = (FileTime) Files.getAttribute(blob, "unix:ctime");
+                    if (links == 1 && changed.compareTo(changedBefore) < 0) {
+                        long size = Files.size(blob);
+                        Files.delete(blob);
+                        deletedBlobs++;
+                        deletedBytes += size;
+                    }
+                } catch (IOException e) {
+                    LOG.error("Failed to check blob {}", blob, e);
+                }
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.error("Failed to sweep blobs in {}", blobDirectory, e);
+            return;
+        }
+        LOG.info("Removed {} unreferenced blobs, {} bytes", deletedBlobs, deletedBytes);
+    }
+}
@@ -0,0 +1,19 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.LinkedHashMap;
+
+public class CacheEvictionConfiguration {
+    @NotNull
+    public LinkedHashMap<String, DataSize> quotas = new LinkedHashMap<>();
+    public String accessTimesFile = null;
+    @NotNull
+    public Duration flushInterval = Duration.minutes(1);
+    @NotNull
+    public Duration sweepInterval = Duration.minutes(10);
+    public double targetFraction = 0.9;
+    public double deletesPerSecond = 50;
+}
@@ -0,0 +1,195 @@
+package com.grunka.maven;
+
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.DataSize;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class CacheEvictor implements Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(CacheEvictor.class);
+    private final Path storageDirectory;
+    private final Storage storage;
+    private final Path accessTimesFile;
+    private final Map<String, DataSize> quotas;
+    private final double targetFraction;
+    private final long nanosPerDelete;
+    private final Consumer<Path> evicted;
+    private final Map<String, Long> recentAccesses = new ConcurrentHashMap<>();
+    private final Map<String, Long> accessTimes = new ConcurrentHashMap<>();
+
+    public CacheEvictor(Path storageDirectory, Storage storage, CacheEvictionConfiguration configuration, Consumer<Path> evicted) {
+        this.storageDirectory = storageDirectory.toAbsolutePath().normalize();
+        this.storage = storage;
+        this.accessTimesFile = configuration.accessTimesFile != null ? Path.of(configuration.accessTimesFile) : storageDirectory.resolve(".cache-access-times");
+        this.quotas = new ConcurrentHashMap<>(configuration.quotas);
+        this.quotas.remove(MavenRepositoryResource.LOCAL);
+        this.targetFraction = configuration.targetFraction;
+        this.nanosPerDelete = configuration.deletesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / configuration.deletesPerSecond) : 0;
+        this.evicted = evicted;
+    }
+
+    public void accessed(Path file) {
+        Path relative = storageDirectory.relativize(file.toAbsolutePath().normalize());
+        if (relative.getNameCount() < 2 || !quotas.containsKey(relative.getName(0).toString())) {
+            return;
+        }
+        recentAccesses.put(relative.getParent().toString(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (!Files.exists(accessTimesFile)) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(accessTimesFile)))) {
+            while (true) {
+                String versionDirectory = input.readUTF();
+                accessTimes.put(versionDirectory, input.readLong());
+            }
+        } catch (EOFException e) {
+            LOG.info("Loaded {} cache access times from {}", accessTimes.size(), accessTimesFile);
+        }
+    }
+
+    @Override
+    public void stop() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        if (recentAccesses.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<String, Long>> iterator = recentAccesses.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            accessTimes.merge(entry.getKey(), entry.getValue(), Math::max);
+        }
+        Path temporaryFile = accessTimesFile.resolveSibling(accessTimesFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                for (Map.Entry<String, Long> entry : accessTimes.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeLong(entry.getValue());
+                }
+            }
+            Files.move(temporaryFile, accessTimesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.error("Failed to write cache access times to {}", accessTimesFile, e);
+        }
+    }
+
+    public void sweep() {
+        Set<String> accessedSinceFlush = new HashSet<>(recentAccesses.keySet());
+        flush();
+        for (Map.Entry<String, DataSize> quota : quotas.entrySet()) {
+            try {
+                sweep(quota.getKey(), quota.getValue().toBytes(), accessedSinceFlush);
+            } catch (IOException e) {
+                LOG.error("Failed to sweep cache of {}", quota.getKey(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void sweep(String remote, long quotaBytes, Set<String> accessedSinceFlush) throws IOException, InterruptedException {
+        Path remoteDirectory = storageDirectory.resolve(remote);
+        if (!storage.isDirectory(remoteDirectory)) {
+            return;
+        }
+        Map<Path, VersionDirectory> versionDirectories = new HashMap<>();
+        Deque<Path> directories = new ArrayDeque<>(List.of(remoteDirectory));
+        while (!directories.isEmpty()) {
+            for (Storage.Entry entry : storage.list(directories.pop())) {
+                if (entry.directory()) {
+                    directories.push(entry.path());
+                } else {
+                    Path directory = entry.path().getParent();
+                    versionDirectories.merge(directory, new VersionDirectory(directory, entry.size(), entry.lastModified().toMillis()),
+                            (a, b) -> new VersionDirectory(directory, a.size() + b.size(), Math.max(a.lastAccess(), b.lastAccess())));
+                }
+            }
+        }
+        long totalBytes = versionDirectories.values().stream().mapToLong(VersionDirectory::size).sum();
+        if (totalBytes <= quotaBytes) {
+            LOG.info("Cache of {} uses {} of {} bytes", remote, totalBytes, quotaBytes);
+            return;
+        }
+        long targetBytes = (long) (quotaBytes * targetFraction);
+        List<VersionDirectory> candidates = new ArrayList<>();
+        for (VersionDirectory directory : versionDirectories.values()) {
+            Long lastAccess = accessTimes.get(storageDirectory.relativize(directory.path()).toString());
+            candidates.add(lastAccess != null ? new VersionDirectory(directory.path(), directory.size(), lastAccess) : directory);
+        }
+        candidates.sort(Comparator.comparingLong(VersionDirectory::lastAccess));
+        long evictedBytes = 0;
+        int evictedDirectories = 0;
+        for (VersionDirectory candidate : candidates) {
+            if (totalBytes - evictedBytes <= targetBytes) {
+                break;
+            }
+            String key = storageDirectory.relativize(candidate.path()).toString();
+            if (accessedSinceFlush.contains(key) || recentAccesses.containsKey(key)) {
+                continue;
+            }
+            evictedBytes += delete(candidate.path());
+            accessTimes.remove(key);
+            evictedDirectories++;
+            if (nanosPerDelete > 0) {
+                TimeUnit.NANOSECONDS.sleep(nanosPerDelete);
+            }
+        }
+        LOG.info("Evicted {} versions, {} bytes, from cache of {} using {} of {} bytes", evictedDirectories, evictedBytes, remote, totalBytes, quotaBytes);
+    }
+
+    private long delete(Path versionDirectory) throws IOException {
+        long deletedBytes = 0;
+        for (Storage.Entry entry : storage.list(versionDirectory)) {
+            if (!entry.directory()) {
+                storage.delete(entry.path());
+                evicted.accept(entry.path());
+                deletedBytes += entry.size();
+            }
+        }
+        try {
+            Path directory = versionDirectory;
+            Path remoteDirectory = storageDirectory.resolve(storageDirectory.relativize(versionDirectory).getName(0));
+            while (!directory.equals(remoteDirectory) && Files.deleteIfExists(directory)) {
+                directory = directory.getParent();
+            }
+        } catch (DirectoryNotEmptyException e) {
+            LOG.debug("Stopped removing empty directories at {}", e.getFile());
+        }
+        return deletedBytes;
+    }
+
+    private record VersionDirectory(Path path, long size, long lastAccess) {
+    }
+}
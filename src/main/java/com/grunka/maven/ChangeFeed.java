@@ -0,0 +1,206 @@
+package com.grunka.maven;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class ChangeFeed implements Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeFeed.class);
+    private final Path directory;
+    private final Change[] buffer;
+    private final int segmentChanges;
+    private final int retainedSegments;
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private DataOutputStream segmentOutput;
+    private long segmentStart;
+    private boolean segmentFailed = false;
+    private long lastSequence = 0;
+    private long firstBuffered = 1;
+
+    public enum Type {
+        deployed, cached
+    }
+
+    public record Change(long sequence, long timestamp, Type type, String repository, String path) {
+    }
+
+    public ChangeFeed(Path directory, ChangeFeedConfiguration configuration) {
+        this.directory = directory;
+        this.buffer = new Change[configuration.bufferSize];
+        this.segmentChanges = configuration.segmentChanges;
+        this.retainedSegments = configuration.retainedSegments;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().matches("changes-\\d+\\.dat")).toList()) {
+                String fileName = file.getFileName().toString();
+                segments.put(Long.parseLong(fileName.substring("changes-".length(), fileName.length() - ".dat".length())), file);
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            Path lastSegment = segments.lastEntry().getValue();
+            long validBytes = 0;
+            List<Change> changes = readSegment(lastSegment);
+            for (Change change : changes) {
+                buffer[index(change.sequence())] = change;
+                validBytes += recordSize(change);
+            }
+            if (validBytes < Files.size(lastSegment)) {
+                LOG.warn("Truncating {} to {} bytes after an incomplete change", lastSegment, validBytes);
+                try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                }
+            }
+            lastSequence = changes.isEmpty() ? segments.lastKey() - 1 : changes.get(changes.size() - 1).sequence();
+            firstBuffered = changes.isEmpty() ? lastSequence + 1 : changes.get(0).sequence();
+            segmentStart = segments.lastKey();
+            segmentOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(lastSegment, StandardOpenOption.APPEND)));
+        }
+        LOG.info("Change feed continues after sequence {}", lastSequence);
+    }
+
+    @Override
+    public synchronized void stop() throws IOException {
+        segmentOutput.close();
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % buffer.length);
+    }
+
+    private void openSegment(long start) throws IOException {
+        if (segmentOutput != null) {
+            try {
+                segmentOutput.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close change feed segment starting at {}", segmentStart, e);
+            }
+        }
+        Path file = directory.resolve(String.format("changes-%016d.dat", start));
+        segmentOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)));
+        segmentStart = start;
+        segments.put(start, file);
+        while (segments.size() > retainedSegments) {
+            Files.deleteIfExists(segments.pollFirstEntry().getValue());
+        }
+    }
+
+    private static int recordSize(Change change) {
+        return Long.BYTES * 2 + 1 + Short.BYTES * 2 + change.repository().getBytes(StandardCharsets.UTF_8).length + change.path().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readUnsignedShort()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static List<Change> readSegment(Path file) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                changes.add(new Change(input.readLong(), input.readLong(), Type.values()[input.readByte()], readString(input), readString(input)));
+            }
+        } catch (EOFException e) {
+            return changes;
+        }
+    }
+
+    public void append(Type type, String repository, String path) {
+        synchronized (this) {
+            Change change = new Change(lastSequence + 1, System.currentTimeMillis(), type, repository, path);
+            try {
+                if (segmentFailed || change.sequence() - segmentStart >= segmentChanges) {
+                    openSegment(change.sequence());
+                    segmentFailed = false;
+                }
+                segmentOutput.writeLong(change.sequence());
+                segmentOutput.writeLong(change.timestamp());
+                segmentOutput.writeByte(change.type().ordinal());
+                writeString(segmentOutput, change.repository());
+                writeString(segmentOutput, change.path());
+                segmentOutput.flush();
+            } catch (IOException e) {
+                LOG.error("Failed to write change {} to the change feed segment, leaving it out", change, e);
+                segmentFailed = true;
+                return;
+            }
+            buffer[index(change.sequence())] = change;
+            lastSequence = change.sequence();
+            notifyAll();
+        }
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    public List<Change> since(long sequence, int limit) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        synchronized (this) {
+            if (sequence + 1 >= Math.max(firstBuffered, lastSequence - buffer.length + 1)) {
+                for (long next = sequence + 1; next <= lastSequence && changes.size() < limit; next++) {
+                    changes.add(buffer[index(next)]);
+                }
+                return changes;
+            }
+        }
+        Long first = segments.floorKey(sequence + 1);
+        for (Path segment : (first == null ? segments : segments.tailMap(first, true)).values()) {
+            try {
+                for (Change change : readSegment(segment)) {
+                    if (change.sequence() > sequence) {
+                        changes.add(change);
+                        if (changes.size() >= limit) {
+                            return changes;
+                        }
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                LOG.debug("Segment {} was removed while reading", segment);
+            }
+        }
+        return changes;
+    }
+
+    public synchronized boolean await(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (lastSequence <= sequence) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+}
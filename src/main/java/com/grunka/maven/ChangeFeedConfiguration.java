@@ -0,0 +1,18 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class ChangeFeedConfiguration {
+    public boolean enabled = false;
+    @Min(1)
+    public int bufferSize = 10_000;
+    @Min(1)
+    public int segmentChanges = 100_000;
+    @Min(1)
+    public int retainedSegments = 10;
+    public int maxStreams = 100;
+    @NotNull
+    public Duration heartbeatInterval = Duration.seconds(15);
+}
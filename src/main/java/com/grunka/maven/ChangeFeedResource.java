@@ -0,0 +1,106 @@
+package com.grunka.maven;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grunka.maven.authentication.Access;
+import com.grunka.maven.authentication.User;
+import io.dropwizard.auth.Auth;
+import jakarta.annotation.security.PermitAll;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Path("/changes")
+@PermitAll
+public class ChangeFeedResource {
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeFeedResource.class);
+    private static final int MAX_LIMIT = 10_000;
+    private static final int STREAM_BATCH = 1000;
+    private final ChangeFeed changeFeed;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService streamExecutor;
+    private final long heartbeatMillis;
+
+    public record Changes(List<ChangeFeed.Change> changes, long lastSequence) {
+    }
+
+    public ChangeFeedResource(ChangeFeed changeFeed, ObjectMapper objectMapper, ExecutorService streamExecutor, ChangeFeedConfiguration configuration) {
+        this.changeFeed = changeFeed;
+        this.objectMapper = objectMapper;
+        this.streamExecutor = streamExecutor;
+        this.heartbeatMillis = configuration.heartbeatInterval.toMilliseconds();
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Changes changes(@QueryParam("since") @DefaultValue("0") long since, @QueryParam("limit") @DefaultValue("1000") int limit, @Auth User user) throws IOException {
+        assertReadAccess(user);
+        return new Changes(changeFeed.since(since, Math.max(1, Math.min(limit, MAX_LIMIT))), changeFeed.lastSequence());
+    }
+
+    @GET
+    @Path("/stream")
+    @Produces("text/event-stream")
+    public ChunkedOutput<String> stream(@QueryParam("since") Long since, @HeaderParam("Last-Event-ID") Long lastEventId, @Auth User user) {
+        assertReadAccess(user);
+        long start = lastEventId != null ? lastEventId : since != null ? since : changeFeed.lastSequence();
+        ChunkedOutput<String> output = new ChunkedOutput<>(String.class);
+        try {
+            streamExecutor.execute(() -> stream(start, output));
+        } catch (RejectedExecutionException e) {
+            throw new WebApplicationException(Response
+                    .status(Response.Status.SERVICE_UNAVAILABLE)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Too many change streams")
+                    .build());
+        }
+        return output;
+    }
+
+    private void stream(long sequence, ChunkedOutput<String> output) {
+        try (output) {
+            output.write("retry: " + heartbeatMillis + "\n\n");
+            while (!output.isClosed()) {
+                List<ChangeFeed.Change> changes = changeFeed.since(sequence, STREAM_BATCH);
+                if (changes.isEmpty()) {
+                    if (!changeFeed.await(sequence, heartbeatMillis, TimeUnit.MILLISECONDS)) {
+                        output.write(":\n\n");
+                    }
+                    continue;
+                }
+                StringBuilder events = new StringBuilder();
+                for (ChangeFeed.Change change : changes) {
+                    events.append("id: ").append(change.sequence()).append('\n')
+                            .append("event: ").append(change.type()).append('\n')
+                            .append("data: ").append(objectMapper.writeValueAsString(change)).append("\n\n");
+                    sequence = change.sequence();
+                }
+                output.write(events.toString());
+            }
+        } catch (IOException e) {
+            LOG.debug("Change stream closed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void assertReadAccess(User user) {
+        if (user.getAccess().compareTo(Access.read) < 0) {
+            throw new WebApplicationException(Response.Status.UNAUTHORIZED);
+        }
+    }
+}
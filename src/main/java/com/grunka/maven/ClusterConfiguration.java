@@ -0,0 +1,15 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.LinkedHashMap;
+
+public class ClusterConfiguration {
+    public String nodeName = null;
+    @NotNull
+    public LinkedHashMap<String, Repository> peers = new LinkedHashMap<>();
+    public int virtualNodes = 128;
+    @NotNull
+    public Duration peerTimeout = Duration.seconds(5);
+}
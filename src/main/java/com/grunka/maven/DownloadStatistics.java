@@ -0,0 +1,238 @@
+package com.grunka.maven;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class DownloadStatistics implements Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadStatistics.class);
+    private static final int FORMAT_VERSION = 1;
+    private final Path storageDirectory;
+    private final Path statisticsFile;
+    private final int trackedArtifacts;
+    private final int queueSize;
+    private final Queue<Download> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final Counters total = new Counters();
+    private final Map<String, Counters> repositories = new ConcurrentHashMap<>();
+    private final Map<String, Tracked> artifacts = new HashMap<>();
+    private final TreeSet<Tracked> byRequests = new TreeSet<>(Comparator.comparingLong((Tracked tracked) -> tracked.requests).thenComparing(tracked -> tracked.key));
+    private volatile boolean dirty = false;
+
+    private record Download(Path file, long bytes, boolean upstream) {
+    }
+
+    private static class Counters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder upstreamRequests = new LongAdder();
+        private final LongAdder upstreamBytes = new LongAdder();
+
+        private void add(long requests, long bytes, long upstreamRequests, long upstreamBytes) {
+            this.requests.add(requests);
+            this.bytes.add(bytes);
+            this.upstreamRequests.add(upstreamRequests);
+            this.upstreamBytes.add(upstreamBytes);
+        }
+    }
+
+    private static class Tracked {
+        private final String key;
+        private long requests;
+        private long bytes;
+        private long upstreamRequests;
+        private long upstreamBytes;
+        private long error;
+
+        private Tracked(String key) {
+            this.key = key;
+        }
+    }
+
+    public record RepositoryStatistics(String repository, long requests, long bytes, long upstreamRequests, long upstreamBytes) {
+    }
+
+    public record ArtifactStatistics(String artifact, String path, long requests, long bytes, long upstreamRequests, long upstreamBytes, long maxOverestimate) {
+    }
+
+    public record Statistics(long requests, long bytes, long upstreamRequests, long upstreamBytes, long dropped, List<RepositoryStatistics> repositories, List<ArtifactStatistics> artifacts) {
+    }
+
+    public DownloadStatistics(Path storageDirectory, DownloadStatisticsConfiguration configuration) {
+        this.storageDirectory = storageDirectory.toAbsolutePath();
+        this.statisticsFile = this.storageDirectory.resolve(".download-statistics");
+        this.trackedArtifacts = configuration.trackedArtifacts;
+        this.queueSize = configuration.queueSize;
+    }
+
+    @Override
+    public void start() {
+        if (!Files.exists(statisticsFile)) {
+            return;
+        }
+        try {
+            load();
+            LOG.info("Loaded download statistics for {} artifacts", artifacts.size());
+        } catch (IOException e) {
+            LOG.warn("Could not load download statistics {}, starting over", statisticsFile, e);
+        }
+    }
+
+    @Override
+    public void stop() throws IOException {
+        drain();
+        save();
+    }
+
+    public void downloaded(Path file, long bytes, boolean upstream) {
+        total.add(1, bytes, upstream ? 1 : 0, upstream ? bytes : 0);
+        if (queued.incrementAndGet() > queueSize) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.add(new Download(file, bytes, upstream));
+    }
+
+    public synchronized void drain() {
+        Download download;
+        while ((download = queue.poll()) != null) {
+            queued.decrementAndGet();
+            Path relative = storageDirectory.relativize(download.file().toAbsolutePath());
+            long upstreamRequests = download.upstream() ? 1 : 0;
+            long upstreamBytes = download.upstream() ? download.bytes() : 0;
+            repositories.computeIfAbsent(relative.getName(0).toString(), r -> new Counters()).add(1, download.bytes(), upstreamRequests, upstreamBytes);
+            dirty = true;
+            if (relative.getNameCount() < 3 || FileContent.CHECKSUM_SUFFIXES.stream().anyMatch(relative.getFileName().toString()::endsWith)) {
+                continue;
+            }
+            count(relative.subpath(1, relative.getNameCount() - 1).toString().replace('\\', '/'), 1, download.bytes(), upstreamRequests, upstreamBytes, 0);
+        }
+    }
+
+    private void count(String key, long requests, long bytes, long upstreamRequests, long upstreamBytes, long error) {
+        Tracked tracked = artifacts.get(key);
+        if (tracked == null) {
+            tracked = new Tracked(key);
+            tracked.error = error;
+            if (artifacts.size() >= trackedArtifacts) {
+                Tracked evicted = byRequests.pollFirst();
+                artifacts.remove(evicted.key);
+                tracked.requests = evicted.requests;
+                tracked.error = evicted.requests;
+            }
+            artifacts.put(key, tracked);
+        } else {
+            byRequests.remove(tracked);
+        }
+        tracked.requests += requests;
+        tracked.bytes += bytes;
+        tracked.upstreamRequests += upstreamRequests;
+        tracked.upstreamBytes += upstreamBytes;
+        byRequests.add(tracked);
+    }
+
+    public synchronized long requests(String path) {
+        Tracked tracked = artifacts.get(path);
+        return tracked == null ? 0 : tracked.requests;
+    }
+
+    public Statistics top(int limit) {
+        List<RepositoryStatistics> repositoryStatistics = repositories.entrySet().stream()
+                .map(entry -> new RepositoryStatistics(entry.getKey(), entry.getValue().requests.sum(), entry.getValue().bytes.sum(), entry.getValue().upstreamRequests.sum(), entry.getValue().upstreamBytes.sum()))
+                .sorted(Comparator.comparingLong(RepositoryStatistics::requests).reversed())
+                .toList();
+        List<ArtifactStatistics> artifactStatistics;
+        synchronized (this) {
+            artifactStatistics = byRequests.descendingSet().stream()
+                    .limit(limit)
+                    .map(tracked -> new ArtifactStatistics(coordinates(tracked.key), tracked.key, tracked.requests, tracked.bytes, tracked.upstreamRequests, tracked.upstreamBytes, tracked.error))
+                    .toList();
+        }
+        return new Statistics(total.requests.sum(), total.bytes.sum(), total.upstreamRequests.sum(), total.upstreamBytes.sum(), dropped.sum(), repositoryStatistics, artifactStatistics);
+    }
+
+    private static String coordinates(String path) {
+        int versionSlash = path.lastIndexOf('/');
+        int artifactSlash = versionSlash < 0 ? -1 : path.lastIndexOf('/', versionSlash - 1);
+        if (artifactSlash < 0) {
+            return path;
+        }
+        return path.substring(0, artifactSlash).replace('/', '.') + ":" + path.substring(artifactSlash + 1, versionSlash) + ":" + path.substring(versionSlash + 1);
+    }
+
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Path temporaryFile = statisticsFile.resolveSibling(statisticsFile.getFileName() + ".tmp");
+        synchronized (this) {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(total.requests.sum());
+                output.writeLong(total.bytes.sum());
+                output.writeLong(total.upstreamRequests.sum());
+                output.writeLong(total.upstreamBytes.sum());
+                output.writeInt(repositories.size());
+                for (Map.Entry<String, Counters> repository : repositories.entrySet()) {
+                    output.writeUTF(repository.getKey());
+                    output.writeLong(repository.getValue().requests.sum());
+                    output.writeLong(repository.getValue().bytes.sum());
+                    output.writeLong(repository.getValue().upstreamRequests.sum());
+                    output.writeLong(repository.getValue().upstreamBytes.sum());
+                }
+                output.writeInt(byRequests.size());
+                for (Tracked tracked : byRequests) {
+                    output.writeUTF(tracked.key);
+                    output.writeLong(tracked.requests);
+                    output.writeLong(tracked.bytes);
+                    output.writeLong(tracked.upstreamRequests);
+                    output.writeLong(tracked.upstreamBytes);
+                    output.writeLong(tracked.error);
+                }
+            } catch (IOException e) {
+                dirty = true;
+                throw e;
+            }
+        }
+        Files.move(temporaryFile, statisticsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private synchronized void load() throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(statisticsFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown download statistics format");
+            }
+            total.add(input.readLong(), input.readLong(), input.readLong(), input.readLong());
+            int repositoryCount = input.readInt();
+            for (int i = 0; i < repositoryCount; i++) {
+                repositories.computeIfAbsent(input.readUTF(), r -> new Counters()).add(input.readLong(), input.readLong(), input.readLong(), input.readLong());
+            }
+            int artifactCount = input.readInt();
+            for (int i = 0; i < artifactCount; i++) {
+                count(input.readUTF(), input.readLong(), input.readLong(), input.readLong(), input.readLong(), input.readLong());
+            }
+        }
+    }
+}
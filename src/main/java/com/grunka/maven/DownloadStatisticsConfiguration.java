@@ -0,0 +1,19 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class DownloadStatisticsConfiguration {
+    public boolean enabled = false;
+    @Min(1)
+    public int trackedArtifacts = 10_000;
+    @Min(1)
+    public int queueSize = 100_000;
+    @NotNull
+    public Duration drainInterval = Duration.seconds(1);
+    @NotNull
+    public Duration saveInterval = Duration.minutes(1);
+    @Min(1)
+    public int maxResults = 100;
+}
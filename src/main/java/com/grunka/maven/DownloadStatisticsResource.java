@@ -0,0 +1,34 @@
+package com.grunka.maven;
+
+import com.grunka.maven.authentication.Access;
+import com.grunka.maven.authentication.User;
+import io.dropwizard.auth.Auth;
+import jakarta.annotation.security.PermitAll;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+@Path("/statistics")
+@PermitAll
+public class DownloadStatisticsResource {
+    private final DownloadStatistics downloadStatistics;
+    private final int maxResults;
+
+    public DownloadStatisticsResource(DownloadStatistics downloadStatistics, DownloadStatisticsConfiguration configuration) {
+        this.downloadStatistics = downloadStatistics;
+        this.maxResults = configuration.maxResults;
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public DownloadStatistics.Statistics top(@QueryParam("limit") Integer limit, @Auth User user) {
+        if (user.getAccess().compareTo(Access.read) < 0) {
+            throw new WebApplicationException(Response.Status.UNAUTHORIZED);
+        }
+        return downloadStatistics.top(limit == null ? maxResults : Math.max(1, Math.min(limit, maxResults)));
+    }
+}
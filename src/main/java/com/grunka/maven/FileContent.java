@@ -1,13 +1,16 @@
 package com.grunka.maven;
 
-import java.math.BigInteger;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
 
 record FileContent(Path path, byte[] content, FileTime lastModified, String sha1, String md5) {
+    static final List<String> CHECKSUM_SUFFIXES = List.of(".sha1", ".md5", ".sha256", ".sha512");
+
     public FileContent(Path path, byte[] content, Instant lastModified) {
         this(path, content, FileTime.from(lastModified), sha1(content), md5(content));
     }
@@ -16,21 +19,30 @@ record FileContent(Path path, byte[] content, FileTime lastModified, String sha1
         this(path, content, lastModified, sha1(content), md5(content));
     }
 
+    public String checksum(String suffix) {
+        return switch (suffix) {
+            case ".sha1" -> sha1;
+            case ".md5" -> md5;
+            case ".sha256" -> digest("SHA-256", content);
+            case ".sha512" -> digest("SHA-512", content);
+            default -> throw new IllegalArgumentException("Unknown checksum suffix " + suffix);
+        };
+    }
+
     private static String sha1(byte[] content) {
-        try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
-            return new BigInteger(1, messageDigest.digest(content)).toString(16);
-        } catch (NoSuchAlgorithmException e) {
-            throw new Error("SHA-1 did not exist", e);
-        }
+        return digest("SHA-1", content);
     }
 
     private static String md5(byte[] content) {
+        return digest("MD5", content);
+    }
+
+    static String digest(String algorithm, byte[] content) {
         try {
-            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
-            return new BigInteger(1, messageDigest.digest(content)).toString(16);
+            MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
+            return HexFormat.of().formatHex(messageDigest.digest(content));
         } catch (NoSuchAlgorithmException e) {
-            throw new Error("MD5 did not exist", e);
+            throw new Error(algorithm + " did not exist", e);
         }
     }
 }
@@ -0,0 +1,79 @@
+package com.grunka.maven;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class FileStorage implements Storage {
+    private final BlobStore blobStore;
+
+    public FileStorage(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    @Override
+    public boolean isFile(Path file) {
+        return Files.isRegularFile(file);
+    }
+
+    @Override
+    public boolean isDirectory(Path directory) {
+        return Files.isDirectory(directory);
+    }
+
+    @Override
+    public FileContent read(Path file) throws IOException {
+        return new FileContent(file, Files.readAllBytes(file), Files.getLastModifiedTime(file));
+    }
+
+    @Override
+    public SeekableByteChannel open(Path file) throws IOException {
+        return Files.newByteChannel(file);
+    }
+
+    @Override
+    public void write(Path file, byte[] content, FileTime lastModified) throws IOException {
+        Files.createDirectories(file.getParent());
+        if (blobStore != null) {
+            blobStore.write(file, content, lastModified != null ? lastModified : FileTime.fromMillis(System.currentTimeMillis()));
+            return;
+        }
+        Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryFile, content);
+            if (lastModified != null) {
+                Files.setLastModifiedTime(temporaryFile, lastModified);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    @Override
+    public void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public List<Entry> list(Path directory) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.toList()) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                entries.add(new Entry(path, attributes.isDirectory(), attributes.size(), attributes.lastModifiedTime()));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,134 @@
+package com.grunka.maven;
+
+import com.codahale.metrics.health.HealthCheck;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public class HotSet extends HealthCheck implements Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(HotSet.class);
+    private final Path storageDirectory;
+    private final Path hotSetFile;
+    private final Storage storage;
+    private final Function<Path, CompletableFuture<FileContent>> warmer;
+    private final Executor warmUpExecutor;
+    private final int size;
+    private final int maxTracked;
+    private final long warmUpBytesPerSecond;
+    private final Map<Path, AtomicLong> accesses = new ConcurrentHashMap<>();
+    private final AtomicInteger warmed = new AtomicInteger();
+    private volatile int toWarm = -1;
+
+    public HotSet(Path storageDirectory, Storage storage, Function<Path, CompletableFuture<FileContent>> warmer, Executor warmUpExecutor, HotSetConfiguration configuration) {
+        this.storageDirectory = storageDirectory.toAbsolutePath();
+        this.hotSetFile = this.storageDirectory.resolve(".hotset");
+        this.storage = storage;
+        this.warmer = warmer;
+        this.warmUpExecutor = warmUpExecutor;
+        this.size = configuration.size;
+        this.maxTracked = configuration.maxTracked;
+        this.warmUpBytesPerSecond = configuration.warmUpBytesPerSecond.toBytes();
+    }
+
+    @Override
+    public void start() {
+        warmUpExecutor.execute(this::warmUp);
+    }
+
+    @Override
+    public void stop() {
+        persist();
+    }
+
+    public void accessed(Path file) {
+        AtomicLong count = accesses.get(file);
+        if (count == null) {
+            if (accesses.size() >= maxTracked) {
+                return;
+            }
+            count = accesses.computeIfAbsent(file, f -> new AtomicLong());
+        }
+        count.incrementAndGet();
+    }
+
+    public void persist() {
+        List<Path> hottest = accesses.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Path, AtomicLong> entry) -> entry.getValue().get()).reversed())
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .toList();
+        accesses.values().removeIf(count -> count.updateAndGet(c -> c / 2) == 0);
+        if (hottest.isEmpty()) {
+            return;
+        }
+        Path temporaryFile = hotSetFile.resolveSibling(hotSetFile.getFileName() + ".tmp");
+        try {
+            Files.write(temporaryFile, hottest.stream().map(file -> storageDirectory.relativize(file.toAbsolutePath()).toString()).toList());
+            Files.move(temporaryFile, hotSetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.debug("Persisted {} hot files", hottest.size());
+        } catch (IOException e) {
+            LOG.error("Failed to persist hot set to {}", hotSetFile, e);
+        }
+    }
+
+    private void warmUp() {
+        List<String> hotFiles;
+        try {
+            hotFiles = Files.exists(hotSetFile) ? Files.readAllLines(hotSetFile) : List.of();
+        } catch (IOException e) {
+            LOG.error("Failed to read hot set from {}", hotSetFile, e);
+            hotFiles = List.of();
+        }
+        toWarm = hotFiles.size();
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (String hotFile : hotFiles) {
+            Path file = storageDirectory.resolve(hotFile).normalize();
+            if (file.startsWith(storageDirectory) && storage.isFile(file)) {
+                try {
+                    bytes += warmer.apply(file).join().content().length;
+                    accessed(file);
+                } catch (RuntimeException e) {
+                    LOG.debug("Could not warm {}", file, e);
+                }
+                long aheadNanos = (long) (bytes * (double) TimeUnit.SECONDS.toNanos(1) / warmUpBytesPerSecond) - (System.nanoTime() - start);
+                if (aheadNanos > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            warmed.incrementAndGet();
+        }
+        LOG.info("Warmed {} hot files, {} bytes in {} ms", hotFiles.size(), bytes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    protected Result check() {
+        if (toWarm < 0) {
+            return Result.unhealthy("Warm-up has not started");
+        }
+        if (warmed.get() < toWarm) {
+            return Result.unhealthy("Warmed " + warmed.get() + " of " + toWarm + " hot files");
+        }
+        return Result.healthy("Warmed " + toWarm + " hot files");
+    }
+}
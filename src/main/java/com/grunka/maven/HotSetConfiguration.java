@@ -0,0 +1,18 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class HotSetConfiguration {
+    public boolean enabled = false;
+    @Min(1)
+    public int size = 1000;
+    @Min(1)
+    public int maxTracked = 100_000;
+    @NotNull
+    public Duration persistInterval = Duration.minutes(5);
+    @NotNull
+    public DataSize warmUpBytesPerSecond = DataSize.mebibytes(50);
+}
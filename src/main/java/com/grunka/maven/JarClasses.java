@@ -0,0 +1,76 @@
+package com.grunka.maven;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class JarClasses {
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIZE = 46;
+    private static final int MAX_COMMENT_SIZE = 0xffff;
+
+    static List<String> classNames(SeekableByteChannel jar) throws IOException {
+        long size = jar.size();
+        int tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = read(jar, size - tailSize, tailSize);
+        int end = findEndOfCentralDirectory(tail);
+        if (end < 0) {
+            return List.of();
+        }
+        int entries = tail.getShort(end + 10) & 0xffff;
+        long directorySize = tail.getInt(end + 12) & 0xffffffffL;
+        long directoryOffset = tail.getInt(end + 16) & 0xffffffffL;
+        long directoryEnd = size - tailSize + end;
+        if (directoryOffset > directoryEnd || directorySize > directoryEnd - directoryOffset) {
+            return List.of();
+        }
+        ByteBuffer directory = read(jar, directoryOffset, (int) directorySize);
+        List<String> classNames = new ArrayList<>();
+        int offset = 0;
+        for (int i = 0; i < entries && offset + CENTRAL_DIRECTORY_ENTRY_SIZE <= directory.limit(); i++) {
+            if (directory.getInt(offset) != CENTRAL_DIRECTORY_ENTRY) {
+                break;
+            }
+            int nameLength = directory.getShort(offset + 28) & 0xffff;
+            int extraLength = directory.getShort(offset + 30) & 0xffff;
+            int commentLength = directory.getShort(offset + 32) & 0xffff;
+            if (offset + CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength > directory.limit()) {
+                break;
+            }
+            String name = new String(directory.array(), offset + CENTRAL_DIRECTORY_ENTRY_SIZE, nameLength, StandardCharsets.UTF_8);
+            if (name.endsWith(".class") && !name.contains("$") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class") && !name.startsWith("META-INF/")) {
+                classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+            }
+            offset += CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength + extraLength + commentLength;
+        }
+        return classNames;
+    }
+
+    private static ByteBuffer read(SeekableByteChannel jar, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        jar.position(position);
+        while (buffer.hasRemaining()) {
+            if (jar.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of jar at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) {
+        int lowest = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAX_COMMENT_SIZE);
+        for (int offset = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; offset >= lowest; offset--) {
+            if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+}
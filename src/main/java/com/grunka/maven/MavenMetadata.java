@@ -0,0 +1,143 @@
+package com.grunka.maven;
+
+import org.w3c.dom.Element;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+record MavenMetadata(String groupId, String artifactId, String version, List<String> versions, String latest, String release, String lastUpdated, List<Plugin> plugins, List<SnapshotVersion> snapshotVersions) {
+    static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneId.of("UTC"));
+
+    record Plugin(String name, String prefix, String artifactId) {
+    }
+
+    record SnapshotVersion(String classifier, String extension, String value, String updated) {
+    }
+
+    static MavenMetadata parse(byte[] content) throws IOException {
+        Element metadata = Xml.parse(content);
+        Optional<Element> versioning = Xml.child(metadata, "versioning");
+        List<String> versions = new ArrayList<>();
+        versioning.flatMap(v -> Xml.child(v, "versions")).ifPresent(v -> Xml.children(v).forEach(e -> versions.add(e.getTextContent().trim())));
+        List<Plugin> plugins = new ArrayList<>();
+        Xml.child(metadata, "plugins").ifPresent(p -> Xml.children(p).forEach(e -> plugins.add(new Plugin(
+                Xml.text(e, "name").orElse(null),
+                Xml.text(e, "prefix").orElse(null),
+                Xml.text(e, "artifactId").orElse(null)
+        ))));
+        return new MavenMetadata(
+                Xml.text(metadata, "groupId").orElse(null),
+                Xml.text(metadata, "artifactId").orElse(null),
+                Xml.text(metadata, "version").orElse(null),
+                versions,
+                versioning.flatMap(v -> Xml.text(v, "latest")).orElse(null),
+                versioning.flatMap(v -> Xml.text(v, "release")).orElse(null),
+                versioning.flatMap(v -> Xml.text(v, "lastUpdated")).orElse(null),
+                plugins,
+                List.of()
+        );
+    }
+
+    static MavenMetadata merge(String groupId, String artifactId, Collection<MavenMetadata> sources) {
+        Set<String> uniqueVersions = new LinkedHashSet<>();
+        Map<String, Plugin> plugins = new LinkedHashMap<>();
+        String lastUpdated = null;
+        for (MavenMetadata source : sources) {
+            uniqueVersions.addAll(source.versions());
+            if (source.latest() != null) {
+                uniqueVersions.add(source.latest());
+            }
+            if (source.release() != null) {
+                uniqueVersions.add(source.release());
+            }
+            source.plugins().forEach(plugin -> plugins.putIfAbsent(plugin.prefix(), plugin));
+            if (source.lastUpdated() != null && (lastUpdated == null || source.lastUpdated().compareTo(lastUpdated) > 0)) {
+                lastUpdated = source.lastUpdated();
+            }
+        }
+        List<String> versions = new ArrayList<>(uniqueVersions);
+        versions.sort(MavenVersion.COMPARATOR.thenComparing(Comparator.naturalOrder()));
+        String release = null;
+        for (String version : versions) {
+            if (!MavenVersion.isSnapshot(version)) {
+                release = version;
+            }
+        }
+        String latest = versions.isEmpty() ? null : versions.get(versions.size() - 1);
+        return new MavenMetadata(groupId, artifactId, null, versions, latest, release, lastUpdated, new ArrayList<>(plugins.values()), List.of());
+    }
+
+    static String timestamp(Instant instant) {
+        return TIMESTAMP.format(instant);
+    }
+
+    byte[] toXml() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<metadata modelVersion=\"1.1.0\">\n");
+        element(xml, "  ", "groupId", groupId);
+        element(xml, "  ", "artifactId", artifactId);
+        element(xml, "  ", "version", version);
+        if (!versions.isEmpty() || !snapshotVersions.isEmpty() || lastUpdated != null) {
+            xml.append("  <versioning>\n");
+            element(xml, "    ", "latest", latest);
+            element(xml, "    ", "release", release);
+            if (!snapshotVersions.isEmpty()) {
+                xml.append("    <snapshot>\n      <localCopy>true</localCopy>\n    </snapshot>\n");
+            }
+            if (!versions.isEmpty()) {
+                xml.append("    <versions>\n");
+                versions.forEach(v -> element(xml, "      ", "version", v));
+                xml.append("    </versions>\n");
+            }
+            element(xml, "    ", "lastUpdated", lastUpdated);
+            if (!snapshotVersions.isEmpty()) {
+                xml.append("    <snapshotVersions>\n");
+                for (SnapshotVersion snapshotVersion : snapshotVersions) {
+                    xml.append("      <snapshotVersion>\n");
+                    element(xml, "        ", "classifier", snapshotVersion.classifier());
+                    element(xml, "        ", "extension", snapshotVersion.extension());
+                    element(xml, "        ", "value", snapshotVersion.value());
+                    element(xml, "        ", "updated", snapshotVersion.updated());
+                    xml.append("      </snapshotVersion>\n");
+                }
+                xml.append("    </snapshotVersions>\n");
+            }
+            xml.append("  </versioning>\n");
+        }
+        if (!plugins.isEmpty()) {
+            xml.append("  <plugins>\n");
+            for (Plugin plugin : plugins) {
+                xml.append("    <plugin>\n");
+                element(xml, "      ", "name", plugin.name());
+                element(xml, "      ", "prefix", plugin.prefix());
+                element(xml, "      ", "artifactId", plugin.artifactId());
+                xml.append("    </plugin>\n");
+            }
+            xml.append("  </plugins>\n");
+        }
+        xml.append("</metadata>\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void element(StringBuilder xml, String indent, String name, String value) {
+        if (value != null) {
+            xml.append(indent).append('<').append(name).append('>').append(Xml.escape(value)).append("</").append(name).append(">\n");
+        }
+    }
+
+    boolean isEmpty() {
+        return versions.isEmpty() && plugins.isEmpty() && snapshotVersions.isEmpty() && Objects.isNull(latest) && Objects.isNull(release);
+    }
+}
@@ -7,8 +7,10 @@ import io.dropwizard.auth.AuthValueFactoryProvider;
 import io.dropwizard.auth.basic.BasicCredentialAuthFilter;
 import io.dropwizard.core.Application;
 import io.dropwizard.core.cli.Command;
+import io.dropwizard.core.cli.ConfiguredCommand;
 import io.dropwizard.core.setup.Bootstrap;
 import io.dropwizard.core.setup.Environment;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparser;
 import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
@@ -16,12 +18,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Console;
+import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class MavenRepositoryApplication extends Application<MavenRepositoryConfiguration> {
@@ -207,6 +219,133 @@ public class MavenRepositoryApplication extends Application<MavenRepositoryConfi
                 }
             }
         });
+        bootstrap.addCommand(new Command("replay-access-log", "Replays a recorded access log against a running repository and reports the differences") {
+            @Override
+            public void configure(Subparser subparser) {
+                subparser.addArgument("-f", "--file")
+                        .dest("file")
+                        .type(String.class)
+                        .required(true)
+                        .help("Location of the recorded access log");
+                subparser.addArgument("-u", "--url")
+                        .dest("url")
+                        .type(String.class)
+                        .required(true)
+                        .help("Base url of the repository to replay against, e.g. http://localhost:8888/");
+                subparser.addArgument("-s", "--speed")
+                        .dest("speed")
+                        .type(Double.class)
+                        .setDefault(1.0)
+                        .help("Replay speed relative to the recording, 0 replays as fast as possible");
+                subparser.addArgument("-c", "--concurrency")
+                        .dest("concurrency")
+                        .type(Integer.class)
+                        .setDefault(64)
+                        .help("Maximum number of concurrent requests");
+                subparser.addArgument("--username")
+                        .dest("username")
+                        .type(String.class)
+                        .help("Username to replay requests as");
+                subparser.addArgument("--password")
+                        .dest("password")
+                        .type(String.class)
+                        .help("Password to replay requests with");
+            }
+
+            @Override
+            public void run(Bootstrap<?> bootstrap, Namespace namespace) {
+                Path accessLogLocation = Path.of(namespace.getString("file"));
+                if (!Files.exists(accessLogLocation)) {
+                    LOG.error("Could not find access log at {}", accessLogLocation);
+                    System.exit(1);
+                }
+                AccessLogReplay replay = new AccessLogReplay(URI.create(namespace.getString("url")), namespace.getDouble("speed"), namespace.getInt("concurrency"), namespace.getString("username"), namespace.getString("password"));
+                try {
+                    System.out.println(replay.replay(accessLogLocation));
+                    System.exit(0);
+                } catch (Exception e) {
+                    LOG.error("Failed to replay access log {}", accessLogLocation, e);
+                    System.exit(1);
+                }
+            }
+        });
+        bootstrap.addCommand(new ConfiguredCommand<MavenRepositoryConfiguration>("rebalance-storage", "Moves stored files to the storage shard they belong on, can be run while the repository is running") {
+            @Override
+            protected void run(Bootstrap<MavenRepositoryConfiguration> bootstrap, Namespace namespace, MavenRepositoryConfiguration configuration) {
+                if (configuration.storage.shards.isEmpty()) {
+                    LOG.error("No storage shards configured");
+                    System.exit(1);
+                }
+                ShardedStorage storage = new ShardedStorage(Path.of(configuration.storageDirectory), configuration.storage.shards.stream().map(Path::of).toList(), fileStorage(configuration, blobStore -> {
+                }));
+                try {
+                    System.out.println(storage.rebalance());
+                    System.exit(0);
+                } catch (Exception e) {
+                    LOG.error("Failed to rebalance storage", e);
+                    System.exit(1);
+                }
+            }
+        });
+        bootstrap.addCommand(new ConfiguredCommand<MavenRepositoryConfiguration>("import-repository", "Imports an existing maven repository directory tree into the storage directory") {
+            @Override
+            public void configure(Subparser subparser) {
+                super.configure(subparser);
+                subparser.addArgument("-f", "--from")
+                        .dest("from")
+                        .type(String.class)
+                        .required(true)
+                        .help("Root of the repository to import, e.g. ~/.m2/repository");
+                subparser.addArgument("-r", "--repository")
+                        .dest("repository")
+                        .type(String.class)
+                        .setDefault(MavenRepositoryResource.LOCAL)
+                        .help("Name of the repository to import into, local or the name of a remote");
+                subparser.addArgument("-t", "--threads")
+                        .dest("threads")
+                        .type(Integer.class)
+                        .setDefault(8)
+                        .help("Number of files read and written concurrently");
+                subparser.addArgument("--link")
+                        .dest("link")
+                        .action(Arguments.storeTrue())
+                        .help("Hardlink files instead of copying them, the imported directory must not be changed afterwards");
+            }
+
+            @Override
+            protected void run(Bootstrap<MavenRepositoryConfiguration> bootstrap, Namespace namespace, MavenRepositoryConfiguration configuration) {
+                Path from = Path.of(namespace.getString("from"));
+                if (!Files.isDirectory(from)) {
+                    LOG.error("Could not find directory {}", from);
+                    System.exit(1);
+                }
+                boolean link = namespace.getBoolean("link");
+                if (link && (configuration.deduplicate || configuration.storage.packSmallFiles || !configuration.storage.shards.isEmpty())) {
+                    LOG.error("Can not hardlink files when deduplicate, storage.packSmallFiles or storage.shards is configured");
+                    System.exit(1);
+                }
+                Path storageDirectory = Path.of(configuration.storageDirectory).toAbsolutePath().normalize();
+                Storage storage = createStorage(storageDirectory, configuration, blobStore -> {
+                });
+                PackedStorage packedStorage = null;
+                try {
+                    if (configuration.storage.packSmallFiles) {
+                        packedStorage = new PackedStorage(storageDirectory, storageDirectory.resolve(".packed"), storage, configuration.storage);
+                        packedStorage.start();
+                        storage = packedStorage;
+                    }
+                    RepositoryImporter importer = new RepositoryImporter(from, storageDirectory.resolve(namespace.getString("repository")), storage, link, namespace.getInt("threads"));
+                    System.out.println(importer.run());
+                    if (packedStorage != null) {
+                        packedStorage.stop();
+                    }
+                    System.exit(0);
+                } catch (Exception e) {
+                    LOG.error("Failed to import {}", from, e);
+                    System.exit(1);
+                }
+            }
+        });
     }
 
     private static Access readAccessFromConsole(Console console) {
@@ -227,7 +366,7 @@ public class MavenRepositoryApplication extends Application<MavenRepositoryConfi
     public void run(MavenRepositoryConfiguration configuration, Environment environment) throws Exception {
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
 
-        Path storageDirectory = Path.of(configuration.storageDirectory);
+        Path storageDirectory = Path.of(configuration.storageDirectory).toAbsolutePath().normalize();
         Files.createDirectories(storageDirectory);
         if (!Files.isWritable(storageDirectory)) {
             throw new IllegalStateException(storageDirectory + " is not writable");
@@ -249,9 +388,167 @@ public class MavenRepositoryApplication extends Application<MavenRepositoryConfi
             }
         });
 
+        if (configuration.accessLog != null) {
+            AccessLog accessLog = new AccessLog(Path.of(configuration.accessLog));
+            environment.lifecycle().manage(accessLog);
+            environment.lifecycle().scheduledExecutorService("access-log-flush").build().scheduleWithFixedDelay(accessLog::flush, 1, 1, TimeUnit.SECONDS);
+            environment.jersey().register(accessLog);
+        }
+
         configureAuthentication(configuration, environment);
 
-        environment.jersey().register(new MavenRepositoryResource(storageDirectory, configuration.remoteRepositories, resourceLoader));
+        Storage storage = createStorage(storageDirectory, configuration, blobStore -> environment.lifecycle().scheduledExecutorService("blob-sweep").build().scheduleWithFixedDelay(blobStore::sweep, 1, 1, TimeUnit.HOURS));
+        if (configuration.storage.packSmallFiles) {
+            PackedStorage packedStorage = new PackedStorage(storageDirectory, storageDirectory.resolve(".packed"), storage, configuration.storage);
+            environment.lifecycle().manage(packedStorage);
+            long compactionMillis = configuration.storage.compactionInterval.toMilliseconds();
+            environment.lifecycle().scheduledExecutorService("packed-storage-compaction").build().scheduleWithFixedDelay(packedStorage::compact, compactionMillis, compactionMillis, TimeUnit.MILLISECONDS);
+            storage = packedStorage;
+        }
+        if (configuration.storage.hotDirectory != null) {
+            ExecutorService promotionExecutor = environment.lifecycle().executorService("tier-promotion-%d")
+                    .minThreads(1)
+                    .maxThreads(1)
+                    .workQueue(new ArrayBlockingQueue<>(1000))
+                    .rejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy())
+                    .build();
+            TieredStorage tieredStorage = new TieredStorage(storageDirectory, Path.of(configuration.storage.hotDirectory), storage, new FileStorage(null), promotionExecutor, configuration.storage);
+            tieredStorage.loadHotFiles();
+            long demotionMillis = configuration.storage.demotionInterval.toMilliseconds();
+            environment.lifecycle().scheduledExecutorService("tier-demotion").build().scheduleWithFixedDelay(tieredStorage::demote, demotionMillis, demotionMillis, TimeUnit.MILLISECONDS);
+            storage = tieredStorage;
+        }
+
+        MavenRepositoryResource mavenRepositoryResource = new MavenRepositoryResource(storageDirectory, storage, new UpstreamRouter(configuration.remoteRepositories, configuration.routes, configuration.maxLearnedRoutes), resourceLoader, new MetadataGenerator(MavenRepositoryResource.HTTP_CLIENT, storage, configuration.metadataCacheTime));
+        if (configuration.prefetch.enabled) {
+            ExecutorService prefetchExecutor = environment.lifecycle().executorService("prefetch-%d")
+                    .minThreads(configuration.prefetch.threads)
+                    .maxThreads(configuration.prefetch.threads)
+                    .workQueue(new ArrayBlockingQueue<>(configuration.prefetch.queueSize))
+                    .threadFactory(Prefetcher.threadFactory())
+                    .build();
+            mavenRepositoryResource.setPrefetcher(new Prefetcher(prefetchExecutor, configuration.prefetch, mavenRepositoryResource::prefetch));
+        }
+        if (!configuration.cacheEviction.quotas.isEmpty()) {
+            CacheEvictor cacheEvictor = new CacheEvictor(storageDirectory, storage, configuration.cacheEviction, mavenRepositoryResource::invalidateCachedFileContent);
+            environment.lifecycle().manage(cacheEvictor);
+            ScheduledExecutorService cacheEvictionExecutor = environment.lifecycle().scheduledExecutorService("cache-eviction").build();
+            long flushMillis = configuration.cacheEviction.flushInterval.toMilliseconds();
+            long sweepMillis = configuration.cacheEviction.sweepInterval.toMilliseconds();
+            cacheEvictionExecutor.scheduleWithFixedDelay(cacheEvictor::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+            cacheEvictionExecutor.scheduleWithFixedDelay(cacheEvictor::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+            mavenRepositoryResource.setCacheEvictor(cacheEvictor);
+        }
+        if (configuration.cluster.nodeName != null && !configuration.cluster.peers.isEmpty()) {
+            mavenRepositoryResource.setPeerCluster(new PeerCluster(configuration.cluster));
+        }
+        if (!configuration.replication.followers.isEmpty()) {
+            ReplicationOutbox replicationOutbox = new ReplicationOutbox(storageDirectory.resolve(".replication"), configuration.replication.followers.keySet());
+            environment.lifecycle().manage(replicationOutbox);
+            ScheduledExecutorService replicationExecutor = environment.lifecycle().scheduledExecutorService("replication-%d")
+                    .threads(configuration.replication.followers.size() + 1)
+                    .build();
+            replicationExecutor.scheduleWithFixedDelay(replicationOutbox::flush, 1, 1, TimeUnit.SECONDS);
+            long intervalMillis = configuration.replication.interval.toMilliseconds();
+            for (Map.Entry<String, Repository> follower : configuration.replication.followers.entrySet()) {
+                String name = follower.getKey();
+                Replicator replicator = new Replicator(name, follower.getValue(), replicationOutbox, storage, storageDirectory.resolve(MavenRepositoryResource.LOCAL), MavenRepositoryResource.HTTP_CLIENT, configuration.replication);
+                replicationExecutor.scheduleWithFixedDelay(replicator, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+                environment.metrics().registerGauge("replication." + name + ".lagEntries", replicator::lagEntries);
+                environment.metrics().registerGauge("replication." + name + ".lagSeconds", replicator::lagSeconds);
+            }
+            mavenRepositoryResource.setReplicationOutbox(replicationOutbox);
+        }
+        if (configuration.changeFeed.enabled) {
+            ChangeFeed changeFeed = new ChangeFeed(storageDirectory.resolve(".changes"), configuration.changeFeed);
+            environment.lifecycle().manage(changeFeed);
+            mavenRepositoryResource.setChangeFeed(changeFeed);
+            ExecutorService streamExecutor = environment.lifecycle().executorService("change-stream-%d")
+                    .minThreads(1)
+                    .maxThreads(configuration.changeFeed.maxStreams)
+                    .workQueue(new SynchronousQueue<>())
+                    .build();
+            environment.jersey().register(new ChangeFeedResource(changeFeed, environment.getObjectMapper(), streamExecutor, configuration.changeFeed));
+        }
+        if (configuration.search.enabled) {
+            ExecutorService indexExecutor = environment.lifecycle().executorService("search-index-%d")
+                    .minThreads(1)
+                    .maxThreads(1)
+                    .workQueue(new ArrayBlockingQueue<>(configuration.search.queueSize))
+                    .build();
+            SearchIndex searchIndex = new SearchIndex(storageDirectory, storage, indexExecutor);
+            environment.lifecycle().manage(searchIndex);
+            long saveMillis = configuration.search.saveInterval.toMilliseconds();
+            environment.lifecycle().scheduledExecutorService("search-index-save").build().scheduleWithFixedDelay(() -> {
+                searchIndex.retryMissed();
+                try {
+                    searchIndex.save();
+                } catch (IOException e) {
+                    LOG.error("Failed to save search index", e);
+                }
+            }, saveMillis, saveMillis, TimeUnit.MILLISECONDS);
+            mavenRepositoryResource.setSearchIndex(searchIndex);
+            environment.jersey().register(new SearchResource(searchIndex, configuration.search));
+        }
+        if (configuration.bandwidth.enabled) {
+            BandwidthShaper bandwidthShaper = new BandwidthShaper(configuration.bandwidth, environment.metrics());
+            environment.lifecycle().manage(bandwidthShaper);
+            mavenRepositoryResource.setBandwidthShaper(bandwidthShaper);
+        }
+        if (configuration.admission.enabled) {
+            AdmissionController admissionController = new AdmissionController(configuration.admission, environment.metrics());
+            environment.healthChecks().register("admission", admissionController);
+            mavenRepositoryResource.setAdmissionController(admissionController);
+        }
+        if (configuration.hotSet.enabled) {
+            ExecutorService warmUpExecutor = environment.lifecycle().executorService("warm-up-%d").minThreads(1).maxThreads(1).build();
+            HotSet hotSet = new HotSet(storageDirectory, storage, mavenRepositoryResource::getCachedFileContent, warmUpExecutor, configuration.hotSet);
+            environment.lifecycle().manage(hotSet);
+            environment.healthChecks().register("warm-up", hotSet);
+            long persistMillis = configuration.hotSet.persistInterval.toMilliseconds();
+            environment.lifecycle().scheduledExecutorService("hot-set-persist").build().scheduleWithFixedDelay(hotSet::persist, persistMillis, persistMillis, TimeUnit.MILLISECONDS);
+            mavenRepositoryResource.setHotSet(hotSet);
+        }
+        if (configuration.downloadStatistics.enabled) {
+            DownloadStatistics downloadStatistics = new DownloadStatistics(storageDirectory, configuration.downloadStatistics);
+            environment.lifecycle().manage(downloadStatistics);
+            ScheduledExecutorService statisticsExecutor = environment.lifecycle().scheduledExecutorService("download-statistics").build();
+            long drainMillis = configuration.downloadStatistics.drainInterval.toMilliseconds();
+            statisticsExecutor.scheduleWithFixedDelay(downloadStatistics::drain, drainMillis, drainMillis, TimeUnit.MILLISECONDS);
+            long saveMillis = configuration.downloadStatistics.saveInterval.toMilliseconds();
+            statisticsExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    downloadStatistics.save();
+                } catch (IOException e) {
+                    LOG.error("Failed to save download statistics", e);
+                }
+            }, saveMillis, saveMillis, TimeUnit.MILLISECONDS);
+            mavenRepositoryResource.setDownloadStatistics(downloadStatistics);
+            environment.jersey().register(new DownloadStatisticsResource(downloadStatistics, configuration.downloadStatistics));
+        }
+        environment.jersey().register(mavenRepositoryResource);
+        if (configuration.replication.leaderUser != null) {
+            environment.jersey().register(new ReplicationResource(mavenRepositoryResource, configuration.replication.leaderUser));
+        }
+    }
+
+    private static Function<Path, Storage> fileStorage(MavenRepositoryConfiguration configuration, Consumer<BlobStore> blobStoreCreated) {
+        return root -> {
+            BlobStore blobStore = null;
+            if (configuration.deduplicate) {
+                blobStore = new BlobStore(root.resolve(".blobs"));
+                blobStoreCreated.accept(blobStore);
+            }
+            return new FileStorage(blobStore);
+        };
+    }
+
+    private static Storage createStorage(Path storageDirectory, MavenRepositoryConfiguration configuration, Consumer<BlobStore> blobStoreCreated) {
+        Function<Path, Storage> fileStorage = fileStorage(configuration, blobStoreCreated);
+        if (configuration.storage.shards.isEmpty()) {
+            return fileStorage.apply(storageDirectory);
+        }
+        return new ShardedStorage(storageDirectory, configuration.storage.shards.stream().map(Path::of).toList(), fileStorage);
     }
 
     private static void configureAuthentication(MavenRepositoryConfiguration configuration, Environment environment) {
@@ -2,9 +2,12 @@ package com.grunka.maven;
 
 import com.grunka.maven.authentication.Access;
 import io.dropwizard.core.Configuration;
+import io.dropwizard.util.Duration;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class MavenRepositoryConfiguration extends Configuration {
@@ -13,10 +16,50 @@ public class MavenRepositoryConfiguration extends Configuration {
     @NotNull
     public LinkedHashMap<String, Repository> remoteRepositories;
     @NotNull
+    public LinkedHashMap<String, List<String>> routes = new LinkedHashMap<>();
+    public int maxLearnedRoutes = 10_000;
+    @NotNull
     public Access defaultAccess;
     public Map<Access, Map<String, String>> users = null;
     public String sqliteDatabase = null;
     public int saltBits = 128;
     public int iterationCount = 500_000;
     public int keyLength = 512;
+    public String accessLog = null;
+    public boolean deduplicate = false;
+    @Valid
+    @NotNull
+    public StorageConfiguration storage = new StorageConfiguration();
+    @NotNull
+    public Duration metadataCacheTime = Duration.minutes(5);
+    @Valid
+    @NotNull
+    public PrefetchConfiguration prefetch = new PrefetchConfiguration();
+    @Valid
+    @NotNull
+    public CacheEvictionConfiguration cacheEviction = new CacheEvictionConfiguration();
+    @Valid
+    @NotNull
+    public ClusterConfiguration cluster = new ClusterConfiguration();
+    @Valid
+    @NotNull
+    public ReplicationConfiguration replication = new ReplicationConfiguration();
+    @Valid
+    @NotNull
+    public ChangeFeedConfiguration changeFeed = new ChangeFeedConfiguration();
+    @Valid
+    @NotNull
+    public SearchConfiguration search = new SearchConfiguration();
+    @Valid
+    @NotNull
+    public BandwidthConfiguration bandwidth = new BandwidthConfiguration();
+    @Valid
+    @NotNull
+    public AdmissionConfiguration admission = new AdmissionConfiguration();
+    @Valid
+    @NotNull
+    public HotSetConfiguration hotSet = new HotSetConfiguration();
+    @Valid
+    @NotNull
+    public DownloadStatisticsConfiguration downloadStatistics = new DownloadStatisticsConfiguration();
 }
@@ -4,10 +4,15 @@ import com.grunka.maven.authentication.Access;
 import com.grunka.maven.authentication.User;
 import io.dropwizard.auth.Auth;
 import jakarta.annotation.security.PermitAll;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.glassfish.jersey.server.CloseableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,44 +24,139 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Path("/repository")
 @PermitAll
 public class MavenRepositoryResource {
-    private static final List<String> ACCEPTABLE_SUFFIXES = Stream.of(".jar", ".pom").flatMap(suffix -> Stream.of(suffix, suffix + ".md5", suffix + ".sha1")).toList();
+    private static final Set<String> ACCEPTABLE_EXTENSIONS = Set.of("jar", "pom");
+    private static final Map<String, Pattern> SNAPSHOT_FILE_PATTERNS = new ConcurrentHashMap<>();
     private static final Logger LOG = LoggerFactory.getLogger(MavenRepositoryResource.class);
-    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+    static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
     static final String LOCAL = "local";
+    private static final int BATCH_CONCURRENCY = 16;
+    private static final int DOWNLOAD_RETRIES = 2;
     private final java.nio.file.Path storageDirectory;
-    private final LinkedHashMap<String, Repository> remoteRepositories;
+    private final Storage storage;
+    private final UpstreamRouter upstreamRouter;
     private final ResourceLoader resourceLoader;
+    private final MetadataGenerator metadataGenerator;
+    private final PartialDownloads partialDownloads;
     private final Map<java.nio.file.Path, SoftReference<CompletableFuture<FileContent>>> fileCache = new ConcurrentHashMap<>();
+    private final Map<String, java.nio.file.Path> repositoryDirectories = new ConcurrentHashMap<>();
+    private Prefetcher prefetcher = null;
+    private CacheEvictor cacheEvictor = null;
+    private PeerCluster peerCluster = null;
+    private ReplicationOutbox replicationOutbox = null;
+    private ChangeFeed changeFeed = null;
+    private SearchIndex searchIndex = null;
+    private BandwidthShaper bandwidthShaper = null;
+    private AdmissionController admissionController = null;
+    private HotSet hotSet = null;
+    private DownloadStatistics downloadStatistics = null;
+    private final Map<String, CompletableFuture<java.nio.file.Path>> downloads = new ConcurrentHashMap<>();
 
-    public MavenRepositoryResource(java.nio.file.Path storageDirectory, LinkedHashMap<String, Repository> remoteRepositories, ResourceLoader resourceLoader) {
+    public MavenRepositoryResource(java.nio.file.Path storageDirectory, Storage storage, UpstreamRouter upstreamRouter, ResourceLoader resourceLoader, MetadataGenerator metadataGenerator) {
         this.storageDirectory = storageDirectory;
-        this.remoteRepositories = remoteRepositories;
+        this.storage = storage;
+        this.upstreamRouter = upstreamRouter;
         this.resourceLoader = resourceLoader;
+        this.metadataGenerator = metadataGenerator;
+        this.partialDownloads = new PartialDownloads(storageDirectory.resolve(".partial"));
+    }
+
+    public void setPrefetcher(Prefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    public void setCacheEvictor(CacheEvictor cacheEvictor) {
+        this.cacheEvictor = cacheEvictor;
+    }
+
+    public void setPeerCluster(PeerCluster peerCluster) {
+        this.peerCluster = peerCluster;
+    }
+
+    public void setReplicationOutbox(ReplicationOutbox replicationOutbox) {
+        this.replicationOutbox = replicationOutbox;
+    }
+
+    public void setChangeFeed(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    public void setSearchIndex(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    public void setBandwidthShaper(BandwidthShaper bandwidthShaper) {
+        this.bandwidthShaper = bandwidthShaper;
+    }
+
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    public void setHotSet(HotSet hotSet) {
+        this.hotSet = hotSet;
+    }
+
+    public void setDownloadStatistics(DownloadStatistics downloadStatistics) {
+        this.downloadStatistics = downloadStatistics;
+    }
+
+    CompletableFuture<Boolean> prefetch(String path) {
+        return getRepositoryContent(path, false, false, AdmissionController.Priority.prefetch).thenApply(response -> response.getStatus() == Response.Status.OK.getStatusCode());
     }
 
     private record FileRequest(String repositoryName, Repository repository, String path) {
     }
 
+    private static ArtifactPath artifactPath(String path) {
+        try {
+            return ArtifactPath.parse(path);
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Invalid path")
+                    .build());
+        }
+    }
+
     private java.nio.file.Path resolveStorageDirectory(String repository, String path) {
-        java.nio.file.Path absoluteRepositoryPath = storageDirectory.resolve(repository).toAbsolutePath();
-        java.nio.file.Path artifactPath = storageDirectory.resolve(repository).resolve(path).toAbsolutePath();
+        return resolveStorageDirectory(repository, artifactPath(path));
+    }
+
+    private java.nio.file.Path repositoryDirectory(String repository) {
+        return repositoryDirectories.computeIfAbsent(repository, r -> storageDirectory.resolve(r).toAbsolutePath().normalize());
+    }
+
+    private String repositoryPath(String repository, java.nio.file.Path file) {
+        return repositoryDirectory(repository).relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    private java.nio.file.Path resolveStorageDirectory(String repository, ArtifactPath path) {
+        java.nio.file.Path absoluteRepositoryPath = repositoryDirectory(repository);
+        java.nio.file.Path artifactPath = path.resolve(absoluteRepositoryPath);
         if (!artifactPath.startsWith(absoluteRepositoryPath)) {
             LOG.error("Path {} did not resolve inside of {}", path, absoluteRepositoryPath);
             throw new WebApplicationException(Response
@@ -69,51 +169,107 @@ public class MavenRepositoryResource {
     }
 
     private CompletableFuture<Response> getRepositoryContent(String path, boolean includeBody) {
-        List<java.nio.file.Path> localFiles = new ArrayList<>();
-        java.nio.file.Path localRepositoryFile = resolveStorageDirectory(LOCAL, path);
-        if (isMavenMetadata(path)) {
-            return CompletableFuture.completedFuture(notFound());
+        return getRepositoryContent(path, includeBody, false);
+    }
+
+    private CompletableFuture<Response> getRepositoryContent(String path, boolean includeBody, boolean peerRequest) {
+        return getRepositoryContent(path, includeBody, peerRequest, AdmissionController.Priority.miss);
+    }
+
+    private CompletableFuture<Response> getRepositoryContent(String path, boolean includeBody, boolean peerRequest, AdmissionController.Priority missPriority) {
+        ArtifactPath artifactPath = artifactPath(path);
+        if (artifactPath.metadata()) {
+            return getMetadata(artifactPath, includeBody);
         }
-        boolean isSnapshotVersion = localRepositoryFile.getParent().getFileName().endsWith("-SNAPSHOT");
-        localFiles.add(localRepositoryFile);
-        if (!isSnapshotVersion) {
-            remoteRepositories.keySet().forEach(remote -> localFiles.add(resolveStorageDirectory(remote, path)));
+        boolean isSnapshotVersion = artifactPath.snapshot();
+        LinkedHashMap<String, Repository> remoteRepositories = isSnapshotVersion ? new LinkedHashMap<>() : upstreamRouter.remotesFor(artifactPath);
+        List<java.nio.file.Path> localFiles = new ArrayList<>(remoteRepositories.size() + 1);
+        localFiles.add(resolveStorageDirectory(LOCAL, artifactPath));
+        remoteRepositories.keySet().forEach(remote -> localFiles.add(resolveStorageDirectory(remote, artifactPath)));
+        Optional<String> checksumSuffix = Optional.ofNullable(artifactPath.checksum());
+        if (checksumSuffix.isPresent()) {
+            ArtifactPath checkedPath = artifactPath.withoutChecksum();
+            for (java.nio.file.Path checksumFile : localFiles) {
+                java.nio.file.Path artifactFile = checksumFile.resolveSibling(checkedPath.fileName());
+                if (storage.isFile(artifactFile)) {
+                    accessed(artifactFile);
+                    if (storage.isFile(checksumFile)) {
+                        return admitted(AdmissionController.Priority.hit, () -> withSource(createFileContentResponse(checksumFile, includeBody, true), checksumFile, peerRequest));
+                    }
+                    LOG.info("Calculating {} locally", path);
+                    return admitted(AdmissionController.Priority.hit, () -> withSource(createFileContentResponse(getCachedChecksum(artifactFile, checksumFile, checksumSuffix.get()), includeBody, true), checksumFile, peerRequest));
+                }
+            }
         }
-        Optional<java.nio.file.Path> localFile = localFiles.stream().filter(Files::exists).findFirst();
+        Optional<java.nio.file.Path> localFile = localFiles.stream().filter(storage::exists).findFirst();
         if (localFile.isEmpty()) {
             if (isSnapshotVersion) {
                 return CompletableFuture.completedFuture(notFound());
             }
-            List<FileRequest> requests = new ArrayList<>();
-            for (Map.Entry<String, Repository> entry : remoteRepositories.entrySet()) {
-                requests.add(new FileRequest(entry.getKey(), entry.getValue(), path));
-            }
-
-            return getRemoteFile(path, requests)
+            return admitted(missPriority, () -> downloadMissingFile(path, remoteRepositories, peerRequest)
                     .thenCompose(file -> {
                         if (file == null) {
                             return CompletableFuture.completedFuture(notFound());
                         }
-                        return createFileContentResponse(file, includeBody);
+                        return withSource(createFileContentResponse(file, includeBody, false), file, peerRequest);
                     })
                     .exceptionally(t -> Response
                             .status(Response.Status.INTERNAL_SERVER_ERROR)
                             .type(MediaType.TEXT_PLAIN_TYPE)
                             .entity(t.getMessage())
                             .build()
-                    );
+                    ));
         } else {
             java.nio.file.Path localPath = localFile.get();
-            if (Files.isDirectory(localPath)) {
+            if (storage.isDirectory(localPath)) {
                 return createFileListing(path, localFiles);
             } else {
                 LOG.info("Reading {} locally", path);
-                return createFileContentResponse(localPath, includeBody);
+                accessed(localPath);
+                return admitted(AdmissionController.Priority.hit, () -> withSource(createFileContentResponse(localPath, includeBody, true), localPath, peerRequest));
             }
         }
     }
 
-    private CompletableFuture<Response> createFileListing(String urlPath, List<java.nio.file.Path> localFilePaths) {
+    private CompletableFuture<Response> admitted(AdmissionController.Priority priority, Supplier<CompletableFuture<Response>> request) {
+        if (admissionController == null) {
+            return request.get();
+        }
+        Optional<AdmissionController.Ticket> ticket = admissionController.admit(priority, 0);
+        if (ticket.isEmpty()) {
+            LOG.warn("Shedding {} request because of overload", priority);
+            return CompletableFuture.completedFuture(admissionController.overloaded());
+        }
+        try {
+            return request.get().whenComplete((response, t) -> ticket.get().close());
+        } catch (RuntimeException e) {
+            ticket.get().close();
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Response> getMetadata(ArtifactPath path, boolean includeBody) {
+        Optional<String> checksumSuffix = Optional.ofNullable(path.checksum());
+        ArtifactPath metadataPath = path.withoutChecksum();
+        if (metadataPath.path().indexOf('/') < 0) {
+            return CompletableFuture.completedFuture(notFound());
+        }
+        java.nio.file.Path localDirectory = resolveStorageDirectory(LOCAL, metadataPath).getParent();
+        return metadataGenerator.getMetadata(metadataPath.path(), localDirectory, metadataPath.snapshot() ? new LinkedHashMap<>() : upstreamRouter.remotesFor(metadataPath))
+                .thenCompose(metadata -> {
+                    if (metadata.isEmpty()) {
+                        return CompletableFuture.completedFuture(notFound());
+                    }
+                    FileContent fileContent = metadata.get();
+                    if (checksumSuffix.isPresent()) {
+                        java.nio.file.Path checksumFile = fileContent.path().resolveSibling(fileContent.path().getFileName() + checksumSuffix.get());
+                        fileContent = new FileContent(checksumFile, fileContent.checksum(checksumSuffix.get()).getBytes(StandardCharsets.UTF_8), fileContent.lastModified());
+                    }
+                    return createFileContentResponse(CompletableFuture.completedFuture(fileContent), includeBody, true);
+                });
+    }
+
+    CompletableFuture<Response> createFileListing(String urlPath, List<java.nio.file.Path> localFilePaths) {
         List<String> directories = new ArrayList<>();
         List<String> files = new ArrayList<>();
         String pathPrefix;
@@ -125,18 +281,15 @@ public class MavenRepositoryResource {
             pathPrefix = urlPath + "/";
         }
         for (java.nio.file.Path localFilePath : localFilePaths) {
-            if (!Files.isDirectory(localFilePath)) {
-                continue;
-            }
-            try (Stream<java.nio.file.Path> localPaths = Files.list(localFilePath)) {
-                localPaths.forEach(path -> {
-                    String stringPath = pathPrefix + path.getFileName().toString();
-                    if (Files.isDirectory(path)) {
+            try {
+                for (Storage.Entry entry : storage.list(localFilePath)) {
+                    String stringPath = pathPrefix + entry.path().getFileName().toString();
+                    if (entry.directory()) {
                         directories.add(stringPath);
                     } else {
                         files.add(stringPath);
                     }
-                });
+                }
             } catch (IOException e) {
                 LOG.error("Failed to list files in {}", localFilePath, e);
             }
@@ -146,7 +299,7 @@ public class MavenRepositoryResource {
                 .map(b -> new String(b, StandardCharsets.UTF_8))
                 .orElseThrow(() -> new WebApplicationException(notFound()));
 
-        String directoriesHtml = directories.stream().sorted().distinct().map(d -> "<li><a href=\"/repository/" + d + "\">" + d + "</a></li>").collect(Collectors.joining());
+        String directoriesHtml = directories.stream().sorted().distinct().map(d -> "<li><a href=\"/repository/" + d + "\">" + d + "</a>" + downloadCount(d) + "</li>").collect(Collectors.joining());
         pageHtml = pageHtml.replaceAll("%directories%", directoriesHtml);
         String filesHtml = files.stream().sorted().distinct().map(d -> "<li><a href=\"/repository/" + d + "\">" + d + "</a></li>").collect(Collectors.joining());
         pageHtml = pageHtml.replaceAll("%files%", filesHtml);
@@ -166,55 +319,210 @@ public class MavenRepositoryResource {
         return CompletableFuture.completedFuture(Response.ok(pageHtml).type(MediaType.TEXT_HTML_TYPE).build());
     }
 
-    private CompletableFuture<java.nio.file.Path> getRemoteFile(String path, List<FileRequest> requests) {
-        if (requests.isEmpty()) {
+    private String downloadCount(String path) {
+        long requests = downloadStatistics == null ? 0 : downloadStatistics.requests(path);
+        return requests == 0 ? "" : " (" + requests + " downloads)";
+    }
+
+    private CompletableFuture<Response> withSource(CompletableFuture<Response> response, java.nio.file.Path file, boolean peerRequest) {
+        if (!peerRequest) {
+            return response;
+        }
+        String source = storageDirectory.toAbsolutePath().relativize(file).getName(0).toString();
+        return response.thenApply(r -> Response.fromResponse(r).header(PeerCluster.SOURCE_HEADER, source).build());
+    }
+
+    private CompletableFuture<java.nio.file.Path> downloadMissingFile(String path, LinkedHashMap<String, Repository> remoteRepositories, boolean peerRequest) {
+        CompletableFuture<java.nio.file.Path> download = new CompletableFuture<>();
+        CompletableFuture<java.nio.file.Path> ongoingDownload = downloads.putIfAbsent(path, download);
+        if (ongoingDownload != null) {
+            LOG.info("Waiting for ongoing download of {}", path);
+            return ongoingDownload;
+        }
+        try {
+            List<FileRequest> requests = new ArrayList<>();
+            for (Map.Entry<String, Repository> entry : remoteRepositories.entrySet()) {
+                requests.add(new FileRequest(entry.getKey(), entry.getValue(), path));
+            }
+            CompletableFuture<java.nio.file.Path> peerFile = peerCluster != null && !peerRequest ? getPeerFile(path, remoteRepositories) : CompletableFuture.completedFuture(null);
+            peerFile.thenCompose(file -> file != null ? CompletableFuture.completedFuture(file) : getRemoteFile(path, requests))
+                    .whenComplete((file, t) -> {
+                        downloads.remove(path, download);
+                        if (t != null) {
+                            download.completeExceptionally(t);
+                        } else {
+                            download.complete(file);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            LOG.error("Failed to start download of {}", path, e);
+            downloads.remove(path, download);
+            download.completeExceptionally(e);
+        }
+        return download;
+    }
+
+    private CompletableFuture<java.nio.file.Path> getPeerFile(String path, Map<String, Repository> remoteRepositories) {
+        Optional<Map.Entry<String, Repository>> owner = peerCluster.owner(path);
+        if (owner.isEmpty()) {
             return CompletableFuture.completedFuture(null);
         }
-        FileRequest fileRequest = requests.remove(0);
-        URI remotePath = fileRequest.repository().url().resolve(fileRequest.path());
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
+        HttpRequest httpRequest = owner.get().getValue().request("repository/" + path)
+                .header(PeerCluster.PEER_HEADER, peerCluster.nodeName())
+                .timeout(peerCluster.peerTimeout())
                 .GET()
-                .uri(remotePath);
-        if (fileRequest.repository().username() != null && fileRequest.repository().password() != null) {
-            String usernameAndPassword = fileRequest.repository().username() + ":" + fileRequest.repository().password();
-            String authorizationHeader = "Basic " + Base64.getEncoder().encodeToString(usernameAndPassword.getBytes());
-            builder = builder.header(HttpHeaders.AUTHORIZATION, authorizationHeader);
-        }
-        HttpRequest httpRequest = builder.build();
-        java.nio.file.Path targetFile = resolveStorageDirectory(fileRequest.repositoryName(), path);
-        LOG.info("Downloading {} from remote {}", path, remotePath);
+                .build();
+        LOG.info("Requesting {} from peer {}", path, owner.get().getKey());
         return HTTP_CLIENT.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
-                .thenCompose(response -> {
+                .thenApply(response -> {
                     if (response.statusCode() != 200) {
-                        LOG.error("Got status code {} from {}", response.statusCode(), remotePath);
-                        return getRemoteFile(path, requests);
+                        LOG.info("Got status code {} for {} from peer {}", response.statusCode(), path, owner.get().getKey());
+                        return null;
+                    }
+                    Optional<String> source = response.headers().firstValue(PeerCluster.SOURCE_HEADER).filter(remoteRepositories::containsKey);
+                    if (source.isEmpty()) {
+                        LOG.info("Peer {} did not serve {} from a remote repository", owner.get().getKey(), path);
+                        return null;
                     }
-                    Optional<ZonedDateTime> lastModified = response.headers()
+                    java.nio.file.Path targetFile = resolveStorageDirectory(source.get(), path);
+                    Optional<FileTime> lastModified = response.headers()
                             .firstValue("Last-Modified")
-                            .map(t -> ZonedDateTime.parse(t, DateTimeFormatter.RFC_1123_DATE_TIME));
-                    byte[] fileContent = response.body();
+                            .map(t -> FileTime.from(ZonedDateTime.parse(t, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()));
                     try {
-                        Files.createDirectories(targetFile.getParent());
-                        Files.write(targetFile, fileContent);
-                        if (lastModified.isPresent()) {
-                            Files.setLastModifiedTime(targetFile, FileTime.from(lastModified.get().toInstant()));
-                        }
+                        storage.write(targetFile, response.body(), lastModified.orElse(null));
                     } catch (IOException e) {
-                        LOG.error("Failed to save file content for {}", targetFile);
-                        return CompletableFuture.failedFuture(new IllegalStateException("Cannot save file locally"));
+                        LOG.error("Failed to save file content for {}", targetFile, e);
+                        return null;
                     } finally {
-                        fileCache.remove(targetFile);
+                        invalidateCachedFileContent(targetFile);
+                    }
+                    upstreamRouter.served(artifactPath(path), source.get());
+                    accessed(targetFile);
+                    stored(ChangeFeed.Type.cached, source.get(), path);
+                    return targetFile;
+                })
+                .exceptionally(t -> {
+                    LOG.warn("Failed to get {} from peer {}", path, owner.get().getKey(), t);
+                    return null;
+                });
+    }
+
+    private CompletableFuture<java.nio.file.Path> getRemoteFile(String path, List<FileRequest> requests) {
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return getRemoteFile(path, requests.remove(0), requests, DOWNLOAD_RETRIES);
+    }
+
+    private CompletableFuture<java.nio.file.Path> getRemoteFile(String path, FileRequest fileRequest, List<FileRequest> requests, int retries) {
+        URI remotePath = fileRequest.repository().url().resolve(fileRequest.path());
+        HttpRequest httpRequest = partialDownloads.resume(fileRequest.repositoryName(), path, remotePath, fileRequest.repository().request(fileRequest.path())).GET().build();
+        LOG.info("Downloading {} from remote {}", path, remotePath);
+        HttpResponse.BodyHandler<Optional<byte[]>> bodyHandler = partialDownloads.bodyHandler(fileRequest.repositoryName(), path, remotePath);
+        AtomicReference<AdmissionController.Ticket> buffered = new AtomicReference<>(() -> {});
+        return HTTP_CLIENT.sendAsync(httpRequest, admissionController == null ? bodyHandler : responseInfo -> {
+                    if (responseInfo.statusCode() == 200 || responseInfo.statusCode() == 206) {
+                        buffered.set(admissionController.buffered(responseInfo.headers().firstValueAsLong("Content-Length").orElse(0)));
+                    }
+                    return bodyHandler.apply(responseInfo);
+                })
+                .handle((response, t) -> {
+                    if (t == null) {
+                        return saveRemoteFile(path, fileRequest, requests, response);
+                    }
+                    buffered.get().close();
+                    if (retries > 0 && partialDownloads.hasPart(fileRequest.repositoryName(), path)) {
+                        LOG.warn("Download of {} from {} was interrupted, resuming", path, remotePath, t);
+                        return getRemoteFile(path, fileRequest, requests, retries - 1);
+                    }
+                    return CompletableFuture.<java.nio.file.Path>failedFuture(t);
+                })
+                .thenCompose(Function.identity())
+                .whenComplete((file, t) -> buffered.get().close());
+    }
+
+    private CompletableFuture<java.nio.file.Path> saveRemoteFile(String path, FileRequest fileRequest, List<FileRequest> requests, HttpResponse<Optional<byte[]>> response) {
+        URI remotePath = response.uri();
+        if (response.statusCode() != 200 && response.statusCode() != 206) {
+            LOG.error("Got status code {} from {}", response.statusCode(), remotePath);
+            return getRemoteFile(path, requests);
+        }
+        java.nio.file.Path targetFile = resolveStorageDirectory(fileRequest.repositoryName(), path);
+        Optional<ZonedDateTime> lastModified = response.headers()
+                .firstValue("Last-Modified")
+                .map(t -> ZonedDateTime.parse(t, DateTimeFormatter.RFC_1123_DATE_TIME));
+        if (response.body().isEmpty()) {
+            byte[] fileContent;
+            try {
+                fileContent = partialDownloads.read(fileRequest.repositoryName(), path);
+            } catch (IOException e) {
+                LOG.error("Failed to read downloaded file for {}", targetFile, e);
+                partialDownloads.discard(fileRequest.repositoryName(), path);
+                return CompletableFuture.failedFuture(new IllegalStateException("Cannot read downloaded file"));
+            }
+            return verifySha1(fileRequest, fileContent).thenCompose(verified -> {
+                partialDownloads.discard(fileRequest.repositoryName(), path);
+                if (!verified) {
+                    LOG.error("Checksum of {} from {} did not match", path, remotePath);
+                    return getRemoteFile(path, requests);
+                }
+                return storeRemoteFile(path, fileRequest, targetFile, fileContent, lastModified);
+            });
+        }
+        return storeRemoteFile(path, fileRequest, targetFile, response.body().get(), lastModified);
+    }
+
+    private CompletableFuture<Boolean> verifySha1(FileRequest fileRequest, byte[] fileContent) {
+        HttpRequest httpRequest = fileRequest.repository().request(fileRequest.path() + ".sha1").GET().build();
+        return HTTP_CLIENT.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200 || response.body().isBlank()) {
+                        LOG.info("No sha1 available for {}, skipping verification", fileRequest.path());
+                        return true;
                     }
-                    return CompletableFuture.completedFuture(targetFile);
+                    return response.body().trim().split("\\s+")[0].equalsIgnoreCase(FileContent.digest("SHA-1", fileContent));
+                })
+                .exceptionally(t -> {
+                    LOG.warn("Could not get sha1 of {}, skipping verification", fileRequest.path(), t);
+                    return true;
                 });
     }
 
-    private CompletableFuture<Response> createFileContentResponse(java.nio.file.Path targetFile, boolean includeBody) {
-        return getCachedFileContent(targetFile).thenApply(fileContent -> {
-            String filename = targetFile.getFileName().toString();
+    private CompletableFuture<java.nio.file.Path> storeRemoteFile(String path, FileRequest fileRequest, java.nio.file.Path targetFile, byte[] fileContent, Optional<ZonedDateTime> lastModified) {
+        try {
+            storage.write(targetFile, fileContent, lastModified.map(t -> FileTime.from(t.toInstant())).orElse(null));
+        } catch (IOException e) {
+            LOG.error("Failed to save file content for {}", targetFile);
+            return CompletableFuture.failedFuture(new IllegalStateException("Cannot save file locally"));
+        } finally {
+            invalidateCachedFileContent(targetFile);
+        }
+        upstreamRouter.served(artifactPath(path), fileRequest.repositoryName());
+        accessed(targetFile);
+        stored(ChangeFeed.Type.cached, fileRequest.repositoryName(), path);
+        if (prefetcher != null && path.endsWith(".pom")) {
+            prefetcher.pomDownloaded(path, fileContent);
+        }
+        return CompletableFuture.completedFuture(targetFile);
+    }
+
+    private CompletableFuture<Response> createFileContentResponse(java.nio.file.Path targetFile, boolean includeBody, boolean cached) {
+        CompletableFuture<FileContent> fileContent = getCachedFileContent(targetFile);
+        if (includeBody && downloadStatistics != null) {
+            fileContent = fileContent.thenApply(content -> {
+                downloadStatistics.downloaded(targetFile, content.content().length, !cached);
+                return content;
+            });
+        }
+        return createFileContentResponse(fileContent, includeBody, cached);
+    }
+
+    private CompletableFuture<Response> createFileContentResponse(CompletableFuture<FileContent> fileContentFuture, boolean includeBody, boolean cached) {
+        return fileContentFuture.thenApply(fileContent -> {
+            String filename = fileContent.path().getFileName().toString();
             String contentType = switch (filename.substring(filename.lastIndexOf('.'))) {
                 case ".jar" -> "application/java-archive";
-                case ".sha1", ".md5" -> MediaType.TEXT_PLAIN;
+                case ".sha1", ".md5", ".sha256", ".sha512" -> MediaType.TEXT_PLAIN;
                 case ".xml", ".pom" -> MediaType.TEXT_XML;
                 default -> MediaType.APPLICATION_OCTET_STREAM;
             };
@@ -222,7 +530,8 @@ public class MavenRepositoryResource {
                     .ok()
                     .header("Content-Type", contentType)
                     .header("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(fileContent.lastModified().toInstant().atZone(ZoneId.of("UTC"))))
-                    .header("Etag", "\"" + fileContent.sha1() + "\"");
+                    .header("Etag", "\"" + fileContent.sha1() + "\"")
+                    .header(AccessLog.CACHE_HEADER, cached ? "HIT" : "MISS");
             if (includeBody) {
                 responseBuilder = responseBuilder.entity(fileContent.content());
             }
@@ -230,27 +539,43 @@ public class MavenRepositoryResource {
         });
     }
 
-    private CompletableFuture<FileContent> getCachedFileContent(java.nio.file.Path targetFile) {
+    CompletableFuture<FileContent> getCachedFileContent(java.nio.file.Path targetFile) {
+        return getCachedFileContent(targetFile, () -> {
+            try {
+                return CompletableFuture.completedFuture(storage.read(targetFile));
+            } catch (IOException e) {
+                LOG.error("Could not read {}", targetFile, e);
+                throw new IllegalStateException("Could not read file");
+            }
+        });
+    }
+
+    private CompletableFuture<FileContent> getCachedChecksum(java.nio.file.Path artifactFile, java.nio.file.Path checksumFile, String checksumSuffix) {
+        return getCachedFileContent(checksumFile, () -> getCachedFileContent(artifactFile).thenApply(artifact ->
+                new FileContent(checksumFile, artifact.checksum(checksumSuffix).getBytes(StandardCharsets.UTF_8), artifact.lastModified())
+        ));
+    }
+
+    private CompletableFuture<FileContent> getCachedFileContent(java.nio.file.Path key, Supplier<CompletableFuture<FileContent>> loader) {
         CompletableFuture<FileContent> fileContentFuture;
         do {
-            fileContentFuture = fileCache.compute(targetFile, (f, reference) -> {
+            fileContentFuture = fileCache.compute(key, (f, reference) -> {
                 if (reference != null && reference.get() != null) {
                     return reference;
                 }
-                return new SoftReference<>(CompletableFuture.supplyAsync(() -> {
-                    try {
-                        byte[] content = Files.readAllBytes(targetFile);
-                        return new FileContent(targetFile, content, Files.getLastModifiedTime(targetFile));
-                    } catch (IOException e) {
-                        LOG.error("Could not read {}", targetFile, e);
-                        throw new IllegalStateException("Could not read file");
-                    }
-                }));
+                return new SoftReference<>(CompletableFuture.supplyAsync(loader).thenCompose(Function.identity()));
             }).get();
         } while (fileContentFuture == null);
         return fileContentFuture;
     }
 
+    void invalidateCachedFileContent(java.nio.file.Path file) {
+        fileCache.remove(file);
+        for (String checksumSuffix : FileContent.CHECKSUM_SUFFIXES) {
+            fileCache.remove(file.resolveSibling(file.getFileName() + checksumSuffix));
+        }
+    }
+
     private static Response notFound() {
         return Response
                 .status(Response.Status.NOT_FOUND)
@@ -259,17 +584,10 @@ public class MavenRepositoryResource {
                 .build();
     }
 
-    private static boolean isMavenMetadata(String path) {
-        return path.endsWith("maven-metadata.xml") || path.endsWith("maven-metadata.xml.sha1") || path.endsWith("maven-metadata.xml.md5");
-    }
-
     @HEAD
     @Path("/{path:.+}")
     public CompletableFuture<Response> head(@PathParam("path") String path, @Auth User user) {
         assertUserLevel(user, Access.read);
-        if (isMavenMetadata(path)) {
-            return CompletableFuture.completedFuture(notFound());
-        }
         return getRepositoryContent(path, false);
     }
 
@@ -277,9 +595,6 @@ public class MavenRepositoryResource {
     @Path("/{path:.+}")
     public Response options(@PathParam("path") String path, @Auth User user) {
         assertUserLevel(user, Access.read);
-        if (isMavenMetadata(path)) {
-            return notFound();
-        }
         if (user.getAccess().compareTo(Access.write) < 0) {
             return Response
                     .status(Response.Status.NO_CONTENT)
@@ -300,21 +615,169 @@ public class MavenRepositoryResource {
 
     @GET
     @Path("/{path:.+}")
-    public CompletableFuture<Response> get(@PathParam("path") String path, @Auth User user) {
+    public CompletableFuture<Response> get(@PathParam("path") String path, @HeaderParam(PeerCluster.PEER_HEADER) String peer, @Auth User user, @Context CloseableService closeables) {
         assertUserLevel(user, Access.read);
-        if (isMavenMetadata(path)) {
-            return CompletableFuture.completedFuture(notFound());
+        CompletableFuture<Response> response = getRepositoryContent(path, true, peer != null);
+        if (bandwidthShaper != null) {
+            return response.thenApply(r -> bandwidthShaper.shape(user, r, closeables));
+        }
+        return response;
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, "application/x-tar"})
+    public CompletableFuture<Response> batch(@NotNull @Valid BatchRequest batchRequest, @QueryParam("warmOnly") boolean warmOnly, @Auth User user, @Context CloseableService closeables) {
+        assertUserLevel(user, Access.read);
+        List<String> paths = batchRequest.artifacts().stream().flatMap(artifact -> batchPaths(artifact).stream()).distinct().toList();
+        if (warmOnly) {
+            Map<String, Integer> statuses = new ConcurrentHashMap<>();
+            return resolveBatch(paths, false, new AtomicBoolean(), (path, response) -> statuses.put(path, response.getStatus()))
+                    .thenApply(v -> {
+                        Map<String, Integer> orderedStatuses = new LinkedHashMap<>();
+                        paths.forEach(path -> orderedStatuses.put(path, statuses.get(path)));
+                        return Response.ok(orderedStatuses, MediaType.APPLICATION_JSON_TYPE).build();
+                    });
+        }
+        StreamingOutput tarOutput = output -> {
+            BlockingQueue<Map.Entry<String, Response>> resolved = new ArrayBlockingQueue<>(BATCH_CONCURRENCY);
+            AtomicBoolean stopped = new AtomicBoolean();
+            resolveBatch(paths, true, stopped, (path, response) -> {
+                try {
+                    while (!stopped.get() && !resolved.offer(Map.entry(path, response), 1, TimeUnit.SECONDS)) {
+                        LOG.debug("Waiting for batch writer to accept {}", path);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopped.set(true);
+                }
+            });
+            try (TarWriter tarWriter = new TarWriter(output)) {
+                for (int i = 0; i < paths.size(); i++) {
+                    Map.Entry<String, Response> entry = resolved.take();
+                    Response response = entry.getValue();
+                    if (response.getStatus() == Response.Status.OK.getStatusCode() && response.getEntity() instanceof byte[] content) {
+                        Instant lastModified = ZonedDateTime.parse(response.getHeaderString("Last-Modified"), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                        tarWriter.write(entry.getKey(), content, lastModified);
+                    } else {
+                        LOG.info("Leaving {} out of batch, status {}", entry.getKey(), response.getStatus());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing batch", e);
+            } finally {
+                stopped.set(true);
+                resolved.clear();
+            }
+        };
+        Response response = Response.ok(tarOutput, "application/x-tar")
+                .header("Content-Disposition", "attachment; filename=\"repository.tar\"")
+                .build();
+        return CompletableFuture.completedFuture(bandwidthShaper != null ? bandwidthShaper.shape(user, response, closeables) : response);
+    }
+
+    static List<String> batchPaths(String artifact) {
+        List<String> paths = coordinatePaths(artifact);
+        for (String path : paths) {
+            if (path.startsWith("/")) {
+                throw new WebApplicationException(Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .type(MediaType.TEXT_PLAIN_TYPE)
+                        .entity("Invalid path")
+                        .build());
+            }
+            artifactPath(path);
+        }
+        return paths;
+    }
+
+    private static List<String> coordinatePaths(String artifact) {
+        if (!artifact.contains(":")) {
+            return List.of(artifact.startsWith("/") ? artifact.substring(1) : artifact);
+        }
+        String[] parts = artifact.split(":");
+        if (parts.length < 3 || parts.length > 5) {
+            throw new WebApplicationException(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Invalid coordinates " + artifact)
+                    .build());
+        }
+        String groupId = parts[0];
+        String artifactId = parts[1];
+        String version = parts[parts.length - 1];
+        String extension = parts.length >= 4 ? parts[2] : "jar";
+        String classifier = parts.length == 5 ? "-" + parts[3] : "";
+        String base = groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version;
+        if ("pom".equals(extension) && classifier.isEmpty()) {
+            return List.of(base + ".pom");
         }
-        return getRepositoryContent(path, true);
+        return List.of(base + ".pom", base + classifier + "." + extension);
+    }
+
+    private CompletableFuture<Void> resolveBatch(List<String> paths, boolean includeBody, AtomicBoolean stopped, BiConsumer<String, Response> consumer) {
+        Iterator<String> iterator = paths.iterator();
+        CompletableFuture<?>[] workers = new CompletableFuture[Math.min(BATCH_CONCURRENCY, paths.size())];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = resolveNext(iterator, includeBody, stopped, consumer);
+        }
+        return CompletableFuture.allOf(workers);
+    }
+
+    private CompletableFuture<Void> resolveNext(Iterator<String> iterator, boolean includeBody, AtomicBoolean stopped, BiConsumer<String, Response> consumer) {
+        String path;
+        synchronized (iterator) {
+            if (stopped.get() || !iterator.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            path = iterator.next();
+        }
+        CompletableFuture<Response> response;
+        try {
+            response = getRepositoryContent(path, includeBody);
+        } catch (WebApplicationException e) {
+            response = CompletableFuture.completedFuture(e.getResponse());
+        } catch (RuntimeException e) {
+            LOG.error("Failed to resolve {} in batch", path, e);
+            response = CompletableFuture.completedFuture(Response.status(Response.Status.INTERNAL_SERVER_ERROR).build());
+        }
+        return response
+                .exceptionally(t -> Response.status(Response.Status.INTERNAL_SERVER_ERROR).build())
+                .thenComposeAsync(r -> {
+                    consumer.accept(path, r);
+                    return resolveNext(iterator, includeBody, stopped, consumer);
+                });
     }
 
     @PUT
     @Path("/{path:.+}")
-    public Response put(@PathParam("path") String path, InputStream contentStream, @Auth User user) {
+    public Response put(@PathParam("path") String path, @HeaderParam(HttpHeaders.CONTENT_LENGTH) Long contentLength, InputStream contentStream, @Auth User user) {
         assertUserLevel(user, Access.write);
+        if (admissionController == null) {
+            return deploy(path, contentStream, contentLength);
+        }
+        if (contentLength == null) {
+            return Response
+                    .status(Response.Status.LENGTH_REQUIRED)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Content-Length is required")
+                    .build();
+        }
+        Optional<AdmissionController.Ticket> ticket = admissionController.admit(AdmissionController.Priority.deploy, contentLength);
+        if (ticket.isEmpty()) {
+            LOG.warn("Shedding deploy of {} because of overload", path);
+            return admissionController.overloaded();
+        }
+        try (AdmissionController.Ticket admitted = ticket.get()) {
+            return deploy(path, contentStream, contentLength);
+        }
+    }
+
+    private Response deploy(String path, InputStream contentStream, Long contentLength) {
         byte[] content;
         try {
-            content = contentStream.readAllBytes();
+            content = readContent(contentStream, contentLength);
         } catch (IOException e) {
             LOG.error("Failed to read PUT content for path {}", path, e);
             return Response
@@ -323,39 +786,23 @@ public class MavenRepositoryResource {
                     .entity("Failed to read content")
                     .build();
         }
-        java.nio.file.Path savePath = resolveStorageDirectory(LOCAL, path);
-        if (isMavenMetadata(path)) {
+        ArtifactPath artifactPath = artifactPath(path);
+        java.nio.file.Path savePath = resolveStorageDirectory(LOCAL, artifactPath);
+        if (artifactPath.metadata()) {
+            metadataGenerator.invalidate(path);
             return Response.ok().build();
         }
-        String fileName = savePath.getFileName().toString();
-        Optional<String> acceptedSuffix = ACCEPTABLE_SUFFIXES.stream().filter(fileName::endsWith).findFirst();
-        if (acceptedSuffix.isEmpty()) {
+        if (!isDeployable(artifactPath)) {
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
-        String fileType = acceptedSuffix.get();
-        String version = savePath.getParent().getFileName().toString();
-        if (version.endsWith("-SNAPSHOT")) {
-            Matcher matcher = Pattern.compile("^(.+)-(\\d{4})(\\d{2})(\\d{2})\\.(\\d{2})(\\d{2})(\\d{2})-(\\d+)(-[a-zA-Z]+)?" + fileType.replaceAll("\\.", "\\\\.") + "$").matcher(fileName);
-            String updatedFileName = fileName;
-            Optional<Instant> lastModified;
-            if (matcher.matches()) {
-                String name = matcher.group(1);
-                String year = matcher.group(2);
-                String month = matcher.group(3);
-                String day = matcher.group(4);
-                String hour = matcher.group(5);
-                String minute = matcher.group(6);
-                String second = matcher.group(7);
-                //String buildNumber = matcher.group(8);
-                String classifier = Optional.ofNullable(matcher.group(9)).orElse("");
-                updatedFileName = name + "-SNAPSHOT" + classifier + fileType;
-                lastModified = Optional.of(Instant.parse(year + "-" + month + "-" + day + "T" + hour + ":" + minute + ":" + second + "Z"));
-            } else {
-                lastModified = Optional.empty();
-            }
+        String fileType = "." + artifactPath.extension() + Objects.requireNonNullElse(artifactPath.checksum(), "");
+        if (artifactPath.snapshot()) {
+            SnapshotFile snapshotFile = parseSnapshotFileName(artifactPath.fileName(), fileType);
+            String updatedFileName = snapshotFile.fileName();
+            Optional<Instant> lastModified = snapshotFile.lastModified();
             savePath = savePath.getParent().resolve(updatedFileName);
             try {
-                if (Files.exists(savePath)) {
+                if (storage.isFile(savePath)) {
                     return saveContent(path, new FileContent(savePath, content, lastModified.orElse(Instant.now())), Response.Status.OK);
                 } else {
                     return saveContent(path, new FileContent(savePath, content, lastModified.orElse(Instant.now())), Response.Status.CREATED);
@@ -364,7 +811,7 @@ public class MavenRepositoryResource {
                 deleteFilesWithDifferentModifiedTime(savePath, lastModified);
             }
         } else {
-            if (Files.exists(savePath)) {
+            if (storage.isFile(savePath)) {
                 return Response
                         .status(Response.Status.BAD_REQUEST)
                         .type(MediaType.TEXT_PLAIN_TYPE)
@@ -376,22 +823,53 @@ public class MavenRepositoryResource {
         }
     }
 
-    private static void deleteFilesWithDifferentModifiedTime(java.nio.file.Path savePath, Optional<Instant> lastModified) {
+    private static byte[] readContent(InputStream contentStream, Long contentLength) throws IOException {
+        if (contentLength == null) {
+            return contentStream.readAllBytes();
+        }
+        byte[] content = contentStream.readNBytes((int) Math.min(contentLength + 1, Integer.MAX_VALUE));
+        if (content.length > contentLength) {
+            throw new IOException("Content is longer than the declared " + contentLength + " bytes");
+        }
+        return content;
+    }
+
+    private static boolean isDeployable(ArtifactPath artifactPath) {
+        return !artifactPath.metadata() && ACCEPTABLE_EXTENSIONS.contains(artifactPath.extension());
+    }
+
+    record SnapshotFile(String fileName, Optional<Instant> lastModified) {
+    }
+
+    static SnapshotFile parseSnapshotFileName(String fileName, String fileType) {
+        Matcher matcher = SNAPSHOT_FILE_PATTERNS.computeIfAbsent(fileType, type -> Pattern.compile("^(.+)-(\\d{4})(\\d{2})(\\d{2})\\.(\\d{2})(\\d{2})(\\d{2})-(\\d+)(-[a-zA-Z]+)?" + Pattern.quote(type) + "$")).matcher(fileName);
+        if (!matcher.matches()) {
+            return new SnapshotFile(fileName, Optional.empty());
+        }
+        String name = matcher.group(1);
+        String year = matcher.group(2);
+        String month = matcher.group(3);
+        String day = matcher.group(4);
+        String hour = matcher.group(5);
+        String minute = matcher.group(6);
+        String second = matcher.group(7);
+        //String buildNumber = matcher.group(8);
+        String classifier = Optional.ofNullable(matcher.group(9)).orElse("");
+        return new SnapshotFile(name + "-SNAPSHOT" + classifier + fileType, Optional.of(Instant.parse(year + "-" + month + "-" + day + "T" + hour + ":" + minute + ":" + second + "Z")));
+    }
+
+    private void deleteFilesWithDifferentModifiedTime(java.nio.file.Path savePath, Optional<Instant> lastModified) {
         if (lastModified.isEmpty()) {
             return;
         }
-        try (Stream<java.nio.file.Path> list = Files.list(savePath.getParent())) {
-            List<java.nio.file.Path> filesModifiedAtOtherTimes = list.filter(file -> {
-                try {
-                    return lastModified.get().compareTo(Files.getLastModifiedTime(file).toInstant()) != 0;
-                } catch (IOException e) {
-                    LOG.error("Failed to get modified time for {}", file, e);
-                    return false;
-                }
-            }).toList();
+        try {
+            List<java.nio.file.Path> filesModifiedAtOtherTimes = storage.list(savePath.getParent()).stream()
+                    .filter(entry -> !entry.directory() && lastModified.get().compareTo(entry.lastModified().toInstant()) != 0)
+                    .map(Storage.Entry::path)
+                    .toList();
             for (java.nio.file.Path fileToDelete : filesModifiedAtOtherTimes) {
                 try {
-                    Files.deleteIfExists(fileToDelete);
+                    storage.delete(fileToDelete);
                 } catch (IOException e) {
                     LOG.error("Failed to delete {}", fileToDelete, e);
                 }
@@ -417,9 +895,7 @@ public class MavenRepositoryResource {
 
     private Response saveContent(String path, FileContent fileContent, Response.Status statusCode) {
         try {
-            Files.createDirectories(fileContent.path().getParent());
-            Files.write(fileContent.path(), fileContent.content());
-            Files.setLastModifiedTime(fileContent.path(), fileContent.lastModified());
+            storage.write(fileContent.path(), fileContent.content(), fileContent.lastModified());
         } catch (IOException e) {
             LOG.error("Failed to save file {}", fileContent.path(), e);
             return Response
@@ -428,12 +904,62 @@ public class MavenRepositoryResource {
                     .entity("Failed to save content")
                     .build();
         } finally {
-            fileCache.remove(fileContent.path());
+            invalidateCachedFileContent(fileContent.path());
         }
+        metadataGenerator.invalidate(path);
+        String storedPath = repositoryPath(LOCAL, fileContent.path());
+        if (replicationOutbox != null) {
+            try {
+                replicationOutbox.append(storedPath);
+            } catch (IOException e) {
+                LOG.error("Failed to add {} to the replication outbox", storedPath, e);
+            }
+        }
+        stored(ChangeFeed.Type.deployed, LOCAL, storedPath);
         LOG.info("Saved path {} to {}", path, fileContent.path());
         return Response
                 .status(statusCode)
                 .header("Content-Location", "/repository/" + path)
                 .build();
     }
+
+    void replicated(String path, byte[] content, Instant lastModified) throws IOException {
+        ArtifactPath artifactPath = artifactPath(path);
+        if (!isDeployable(artifactPath)) {
+            LOG.warn("Ignoring replicated file {} that can not be deployed", path);
+            return;
+        }
+        java.nio.file.Path file = resolveStorageDirectory(LOCAL, artifactPath);
+        if (!artifactPath.snapshot() && storage.isFile(file)) {
+            if (!FileContent.digest("SHA-1", content).equals(storage.read(file).sha1())) {
+                LOG.warn("Not allowed to update released file {} with a different replicated copy", path);
+            }
+            return;
+        }
+        try {
+            storage.write(file, content, FileTime.from(lastModified));
+        } finally {
+            invalidateCachedFileContent(file);
+        }
+        metadataGenerator.invalidate(path);
+        stored(ChangeFeed.Type.deployed, LOCAL, path);
+    }
+
+    private void stored(ChangeFeed.Type type, String repository, String path) {
+        if (changeFeed != null) {
+            changeFeed.append(type, repository, path);
+        }
+        if (searchIndex != null) {
+            searchIndex.stored(repository, path);
+        }
+    }
+
+    private void accessed(java.nio.file.Path file) {
+        if (cacheEvictor != null) {
+            cacheEvictor.accessed(file);
+        }
+        if (hotSet != null) {
+            hotSet.accessed(file);
+        }
+    }
 }
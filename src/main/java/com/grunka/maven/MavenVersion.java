@@ -0,0 +1,114 @@
+package com.grunka.maven;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+final class MavenVersion {
+    static final Comparator<String> COMPARATOR = MavenVersion::compare;
+    private static final List<String> QUALIFIERS = List.of("alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+
+    private MavenVersion() {
+    }
+
+    static boolean isSnapshot(String version) {
+        return version.endsWith("-SNAPSHOT");
+    }
+
+    private static int compare(String first, String second) {
+        List<Object> firstItems = items(first);
+        List<Object> secondItems = items(second);
+        for (int i = 0; i < Math.max(firstItems.size(), secondItems.size()); i++) {
+            Object firstItem = i < firstItems.size() ? firstItems.get(i) : null;
+            Object secondItem = i < secondItems.size() ? secondItems.get(i) : null;
+            int result = compareItems(firstItem, secondItem);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareItems(Object first, Object second) {
+        if (first == null && second == null) {
+            return 0;
+        }
+        if (first == null) {
+            return -compareItems(second, null);
+        }
+        if (first instanceof BigInteger number) {
+            if (second == null) {
+                return number.signum();
+            }
+            return second instanceof BigInteger other ? number.compareTo(other) : 1;
+        }
+        String qualifier = (String) first;
+        if (second == null) {
+            return compareQualifiers(qualifier, "");
+        }
+        return second instanceof String other ? compareQualifiers(qualifier, other) : -1;
+    }
+
+    private static int compareQualifiers(String first, String second) {
+        int firstIndex = QUALIFIERS.indexOf(first);
+        int secondIndex = QUALIFIERS.indexOf(second);
+        if (firstIndex >= 0 && secondIndex >= 0) {
+            return Integer.compare(firstIndex, secondIndex);
+        }
+        if (firstIndex >= 0) {
+            return -1;
+        }
+        if (secondIndex >= 0) {
+            return 1;
+        }
+        return first.compareTo(second);
+    }
+
+    private static List<Object> items(String version) {
+        List<Object> items = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean digits = false;
+        for (char c : version.toLowerCase().toCharArray()) {
+            if (c == '.' || c == '-' || c == '_') {
+                addItem(items, current, digits);
+                continue;
+            }
+            boolean isDigit = Character.isDigit(c);
+            if (!current.isEmpty() && isDigit != digits) {
+                addItem(items, current, digits);
+            }
+            digits = isDigit;
+            current.append(c);
+        }
+        addItem(items, current, digits);
+        while (!items.isEmpty() && isZero(items.get(items.size() - 1))) {
+            items.remove(items.size() - 1);
+        }
+        return items;
+    }
+
+    private static void addItem(List<Object> items, StringBuilder current, boolean digits) {
+        if (current.isEmpty()) {
+            return;
+        }
+        String item = current.toString();
+        current.setLength(0);
+        if (digits) {
+            items.add(new BigInteger(item));
+            return;
+        }
+        items.add(switch (item) {
+            case "a" -> "alpha";
+            case "b" -> "beta";
+            case "m" -> "milestone";
+            case "cr" -> "rc";
+            case "ga", "final", "release" -> "";
+            default -> item;
+        });
+    }
+
+    private static boolean isZero(Object item) {
+        return item instanceof BigInteger number ? number.signum() == 0 : "".equals(item);
+    }
+}
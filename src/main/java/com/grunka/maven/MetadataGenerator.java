@@ -0,0 +1,245 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class MetadataGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(MetadataGenerator.class);
+    static final String MAVEN_METADATA = "maven-metadata.xml";
+    private static final int MAX_CACHED = 10_000;
+    private static final long MAX_MISSING_CACHE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private final HttpClient httpClient;
+    private final Storage storage;
+    private final long cacheNanos;
+    private final long missingCacheNanos;
+    private final Map<String, UpstreamMetadata> upstreamCache = lruMap();
+    private final Map<String, CompletableFuture<GeneratedMetadata>> generatedCache = lruMap();
+
+    private record UpstreamMetadata(Optional<MavenMetadata> metadata, String etag, String lastModified, long fetchedAt) {
+    }
+
+    private record GeneratedMetadata(Optional<FileContent> content, long generatedAt) {
+    }
+
+    public MetadataGenerator(HttpClient httpClient, Storage storage, io.dropwizard.util.Duration cacheTime) {
+        this.httpClient = httpClient;
+        this.storage = storage;
+        this.cacheNanos = cacheTime.toNanoseconds();
+        this.missingCacheNanos = Math.min(cacheNanos, MAX_MISSING_CACHE_NANOS);
+    }
+
+    private static <V> Map<String, V> lruMap() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > MAX_CACHED;
+            }
+        });
+    }
+
+    private long cacheNanos(Optional<?> cached) {
+        return cached.isPresent() ? cacheNanos : missingCacheNanos;
+    }
+
+    CompletableFuture<Optional<FileContent>> getMetadata(String metadataPath, Path localDirectory, Map<String, Repository> remotes) {
+        return generatedCache.compute(metadataPath, (path, existing) -> {
+            if (existing != null && !existing.isCompletedExceptionally() && (!existing.isDone() || System.nanoTime() - existing.join().generatedAt() < cacheNanos(existing.join().content()))) {
+                return existing;
+            }
+            return generate(path, localDirectory, remotes).thenApply(content -> new GeneratedMetadata(content, System.nanoTime()));
+        }).thenApply(GeneratedMetadata::content);
+    }
+
+    void invalidate(String path) {
+        String directory = path;
+        for (int i = 0; i < 2; i++) {
+            int lastSlash = directory.lastIndexOf('/');
+            if (lastSlash < 0) {
+                return;
+            }
+            directory = directory.substring(0, lastSlash);
+            generatedCache.remove(directory + "/" + MAVEN_METADATA);
+        }
+    }
+
+    private CompletableFuture<Optional<FileContent>> generate(String metadataPath, Path localDirectory, Map<String, Repository> remotes) {
+        List<String> segments = Arrays.asList(metadataPath.split("/"));
+        List<String> directory = segments.subList(0, segments.size() - 1);
+        Path metadataFile = localDirectory.resolve(MAVEN_METADATA);
+        if (directory.size() >= 3 && MavenVersion.isSnapshot(directory.get(directory.size() - 1))) {
+            String version = directory.get(directory.size() - 1);
+            String artifactId = directory.get(directory.size() - 2);
+            String groupId = String.join(".", directory.subList(0, directory.size() - 2));
+            return CompletableFuture.supplyAsync(() -> snapshotMetadata(groupId, artifactId, version, localDirectory).map(m -> toFileContent(metadataFile, m)));
+        }
+        List<CompletableFuture<Optional<MavenMetadata>>> upstream = remotes.entrySet().stream()
+                .map(remote -> getUpstreamMetadata(remote.getKey(), remote.getValue(), metadataPath))
+                .toList();
+        return CompletableFuture.supplyAsync(() -> localVersions(localDirectory))
+                .thenCombine(CompletableFuture.allOf(upstream.toArray(CompletableFuture[]::new)), (local, ignored) -> {
+                    List<MavenMetadata> sources = new ArrayList<>();
+                    upstream.forEach(future -> future.join().ifPresent(sources::add));
+                    String groupId = sources.stream().map(MavenMetadata::groupId).filter(Objects::nonNull).findFirst().orElse(null);
+                    String artifactId = sources.stream().map(MavenMetadata::artifactId).filter(Objects::nonNull).findFirst().orElse(null);
+                    if (!local.versions().isEmpty()) {
+                        sources.add(local);
+                        if (groupId == null && artifactId == null && directory.size() >= 2) {
+                            groupId = String.join(".", directory.subList(0, directory.size() - 1));
+                            artifactId = directory.get(directory.size() - 1);
+                        }
+                    }
+                    MavenMetadata merged = MavenMetadata.merge(groupId, artifactId, sources);
+                    if (merged.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(toFileContent(metadataFile, merged));
+                });
+    }
+
+    private static FileContent toFileContent(Path metadataFile, MavenMetadata metadata) {
+        Instant lastUpdated = Instant.now();
+        if (metadata.lastUpdated() != null) {
+            try {
+                lastUpdated = LocalDateTime.parse(metadata.lastUpdated(), MavenMetadata.TIMESTAMP).toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException e) {
+                LOG.debug("Could not parse lastUpdated {}", metadata.lastUpdated());
+            }
+        }
+        return new FileContent(metadataFile, metadata.toXml(), lastUpdated);
+    }
+
+    private MavenMetadata localVersions(Path artifactDirectory) {
+        List<String> versions = new ArrayList<>();
+        Instant lastUpdated = null;
+        if (storage.isDirectory(artifactDirectory)) {
+            try {
+                for (Path versionDirectory : storage.list(artifactDirectory).stream().filter(Storage.Entry::directory).map(Storage.Entry::path).toList()) {
+                    Optional<Instant> versionUpdated = lastModified(versionDirectory);
+                    if (versionUpdated.isPresent()) {
+                        versions.add(versionDirectory.getFileName().toString());
+                        if (lastUpdated == null || versionUpdated.get().isAfter(lastUpdated)) {
+                            lastUpdated = versionUpdated.get();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                LOG.error("Failed to list versions in {}", artifactDirectory, e);
+            }
+        }
+        return new MavenMetadata(null, null, null, versions, null, null, lastUpdated == null ? null : MavenMetadata.timestamp(lastUpdated), List.of(), List.of());
+    }
+
+    private Optional<Instant> lastModified(Path versionDirectory) throws IOException {
+        return storage.list(versionDirectory).stream()
+                .filter(entry -> entry.path().getFileName().toString().endsWith(".pom"))
+                .map(entry -> entry.lastModified().toInstant())
+                .max(Instant::compareTo);
+    }
+
+    private Optional<MavenMetadata> snapshotMetadata(String groupId, String artifactId, String version, Path versionDirectory) {
+        if (!storage.isDirectory(versionDirectory)) {
+            return Optional.empty();
+        }
+        String prefix = artifactId + "-" + version;
+        List<MavenMetadata.SnapshotVersion> snapshotVersions = new ArrayList<>();
+        Instant lastUpdated = null;
+        try {
+            for (Storage.Entry file : storage.list(versionDirectory).stream().filter(entry -> !entry.directory()).sorted(Comparator.comparing(Storage.Entry::path)).toList()) {
+                String fileName = file.path().getFileName().toString();
+                if (!fileName.startsWith(prefix) || FileContent.CHECKSUM_SUFFIXES.stream().anyMatch(fileName::endsWith)) {
+                    continue;
+                }
+                String rest = fileName.substring(prefix.length());
+                String classifier = null;
+                if (rest.startsWith("-") && rest.indexOf('.') > 1) {
+                    classifier = rest.substring(1, rest.indexOf('.'));
+                    rest = rest.substring(rest.indexOf('.'));
+                }
+                if (!rest.startsWith(".") || rest.length() < 2) {
+                    continue;
+                }
+                Instant updated = file.lastModified().toInstant();
+                if (lastUpdated == null || updated.isAfter(lastUpdated)) {
+                    lastUpdated = updated;
+                }
+                snapshotVersions.add(new MavenMetadata.SnapshotVersion(classifier, rest.substring(1), version, MavenMetadata.timestamp(updated)));
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to list snapshot files in {}", versionDirectory, e);
+            return Optional.empty();
+        }
+        if (snapshotVersions.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new MavenMetadata(groupId, artifactId, version, List.of(), null, null, MavenMetadata.timestamp(lastUpdated), List.of(), snapshotVersions));
+    }
+
+    private CompletableFuture<Optional<MavenMetadata>> getUpstreamMetadata(String remoteName, Repository repository, String metadataPath) {
+        String key = remoteName + ":" + metadataPath;
+        UpstreamMetadata cached = upstreamCache.get(key);
+        long now = System.nanoTime();
+        if (cached != null && now - cached.fetchedAt() < cacheNanos(cached.metadata())) {
+            return CompletableFuture.completedFuture(cached.metadata());
+        }
+        HttpRequest.Builder builder = repository.request(metadataPath).GET();
+        if (cached != null && cached.etag() != null) {
+            builder = builder.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && cached.lastModified() != null) {
+            builder = builder.header("If-Modified-Since", cached.lastModified());
+        }
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray()).handle((response, throwable) -> {
+            if (throwable != null) {
+                LOG.error("Failed to fetch {} from {}", metadataPath, remoteName, throwable);
+                return cached != null ? cached.metadata() : Optional.empty();
+            }
+            if (response.statusCode() == 304 && cached != null) {
+                upstreamCache.put(key, new UpstreamMetadata(cached.metadata(), cached.etag(), cached.lastModified(), now));
+                return cached.metadata();
+            }
+            if (response.statusCode() == 404) {
+                upstreamCache.put(key, new UpstreamMetadata(Optional.empty(), null, null, now));
+                return Optional.empty();
+            }
+            if (response.statusCode() != 200) {
+                LOG.error("Got status code {} for {} from {}", response.statusCode(), metadataPath, remoteName);
+                return cached != null ? cached.metadata() : Optional.empty();
+            }
+            Optional<MavenMetadata> metadata;
+            try {
+                metadata = Optional.of(MavenMetadata.parse(response.body()));
+            } catch (IOException e) {
+                LOG.error("Could not parse {} from {}", metadataPath, remoteName, e);
+                metadata = Optional.empty();
+            }
+            upstreamCache.put(key, new UpstreamMetadata(
+                    metadata,
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null),
+                    now
+            ));
+            return metadata;
+        });
+    }
+}
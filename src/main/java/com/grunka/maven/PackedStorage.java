@@ -0,0 +1,355 @@
+package com.grunka.maven;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class PackedStorage implements Storage, Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(PackedStorage.class);
+    private static final List<String> PACKED_SUFFIXES = Stream.concat(Stream.of(".pom"), FileContent.CHECKSUM_SUFFIXES.stream()).toList();
+    private static final int HEADER_SIZE = Short.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int DELETED = -1;
+    private final Path root;
+    private final Path segmentDirectory;
+    private final Storage files;
+    private final long maxPackedFileSize;
+    private final long segmentSize;
+    private final double compactionThreshold;
+    private final Map<Path, Location> index = new ConcurrentHashMap<>();
+    private final Map<Path, Set<Path>> directories = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment activeSegment;
+
+    private record Location(Segment segment, int offset, int keyLength, int length, long lastModified) {
+        int recordSize() {
+            return HEADER_SIZE + keyLength + length;
+        }
+    }
+
+    public PackedStorage(Path root, Path segmentDirectory, Storage files, StorageConfiguration configuration) {
+        this.root = root.toAbsolutePath().normalize();
+        this.segmentDirectory = segmentDirectory;
+        this.files = files;
+        this.maxPackedFileSize = configuration.maxPackedFileSize.toBytes();
+        this.segmentSize = Math.min(configuration.segmentSize.toBytes(), Integer.MAX_VALUE);
+        this.compactionThreshold = configuration.compactionThreshold;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        Files.createDirectories(segmentDirectory);
+        try (Stream<Path> segmentFiles = Files.list(segmentDirectory)) {
+            for (Path segmentFile : segmentFiles.filter(f -> f.getFileName().toString().matches("segment-\\d+\\.dat")).toList()) {
+                String fileName = segmentFile.getFileName().toString();
+                int id = Integer.parseInt(fileName.substring("segment-".length(), fileName.length() - ".dat".length()));
+                segments.put(id, new Segment(id, segmentFile));
+            }
+        }
+        for (Segment segment : segments.values()) {
+            segment.load();
+        }
+        activeSegment = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        for (Segment segment : segments.headMap(activeSegment.id).values()) {
+            segment.seal();
+        }
+        LOG.info("Loaded {} packed files from {} segments", index.size(), segments.size());
+    }
+
+    @Override
+    public synchronized void stop() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.force(true);
+            segment.channel.close();
+        }
+    }
+
+    private Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private boolean isPacked(Path file, long size) {
+        String fileName = file.getFileName().toString();
+        return size <= maxPackedFileSize && PACKED_SUFFIXES.stream().anyMatch(fileName::endsWith);
+    }
+
+    @Override
+    public boolean isFile(Path file) {
+        return index.containsKey(normalize(file)) || files.isFile(file);
+    }
+
+    @Override
+    public boolean isDirectory(Path directory) {
+        return files.isDirectory(directory);
+    }
+
+    @Override
+    public FileContent read(Path file) throws IOException {
+        Path normalized = normalize(file);
+        while (true) {
+            Location location = index.get(normalized);
+            if (location == null) {
+                return files.read(file);
+            }
+            try {
+                return new FileContent(file, location.segment().read(location), FileTime.fromMillis(location.lastModified()));
+            } catch (ClosedChannelException e) {
+                if (index.get(normalized) == location) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public SeekableByteChannel open(Path file) throws IOException {
+        if (index.containsKey(normalize(file))) {
+            throw new IOException("Can not open packed file " + file + " as a channel");
+        }
+        return files.open(file);
+    }
+
+    @Override
+    public void write(Path file, byte[] content, FileTime lastModified) throws IOException {
+        Path normalized = normalize(file);
+        if (!isPacked(normalized, content.length)) {
+            files.write(file, content, lastModified);
+            delete(normalized, false);
+            return;
+        }
+        Files.createDirectories(normalized.getParent());
+        boolean replacesFile = files.isFile(file);
+        synchronized (this) {
+            append(normalized, content, lastModified == null ? System.currentTimeMillis() : lastModified.toMillis());
+            if (replacesFile) {
+                activeSegment.channel.force(false);
+            }
+        }
+        if (replacesFile) {
+            files.delete(file);
+        }
+    }
+
+    @Override
+    public void delete(Path file) throws IOException {
+        delete(normalize(file), true);
+    }
+
+    private void delete(Path normalized, boolean deleteFile) throws IOException {
+        if (index.containsKey(normalized)) {
+            synchronized (this) {
+                if (index.containsKey(normalized)) {
+                    append(normalized, null, 0);
+                }
+            }
+        }
+        if (deleteFile) {
+            files.delete(normalized);
+        }
+    }
+
+    @Override
+    public List<Entry> list(Path directory) throws IOException {
+        Map<Path, Entry> entries = new LinkedHashMap<>();
+        for (Entry entry : files.list(directory)) {
+            entries.put(normalize(entry.path()), entry);
+        }
+        for (Path file : directories.getOrDefault(normalize(directory), Set.of())) {
+            Location location = index.get(file);
+            if (location != null) {
+                entries.put(file, new Entry(directory.resolve(file.getFileName()), false, location.length(), FileTime.fromMillis(location.lastModified())));
+            }
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    private void append(Path file, byte[] content, long lastModified) throws IOException {
+        byte[] key = root.relativize(file).toString().getBytes(StandardCharsets.UTF_8);
+        int length = content == null ? DELETED : content.length;
+        int recordSize = HEADER_SIZE + key.length + Math.max(length, 0);
+        if (activeSegment.size.get() + recordSize > segmentSize && activeSegment.size.get() > 0) {
+            activeSegment.seal();
+            activeSegment = createSegment(activeSegment.id + 1);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+        buffer.putShort((short) key.length).put(key).putLong(lastModified).putInt(length);
+        if (content != null) {
+            buffer.put(content);
+        }
+        buffer.flip();
+        int offset = (int) activeSegment.size.get();
+        while (buffer.hasRemaining()) {
+            activeSegment.channel.write(buffer, offset + buffer.position());
+        }
+        activeSegment.size.addAndGet(recordSize);
+        if (content == null) {
+            remove(file);
+        } else {
+            put(file, new Location(activeSegment, offset, key.length, length, lastModified));
+        }
+    }
+
+    private void put(Path file, Location location) {
+        Location previous = index.put(file, location);
+        if (previous != null) {
+            previous.segment().liveBytes.addAndGet(-previous.recordSize());
+        }
+        location.segment().liveBytes.addAndGet(location.recordSize());
+        directories.computeIfAbsent(file.getParent(), d -> ConcurrentHashMap.newKeySet()).add(file);
+    }
+
+    private void remove(Path file) {
+        Location previous = index.remove(file);
+        if (previous != null) {
+            previous.segment().liveBytes.addAndGet(-previous.recordSize());
+        }
+        Set<Path> siblings = directories.get(file.getParent());
+        if (siblings != null) {
+            siblings.remove(file);
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Segment segment = new Segment(id, segmentDirectory.resolve(String.format("segment-%08d.dat", id)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    public void compact() {
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == activeSegment || segment.size.get() == 0 || (double) segment.liveBytes.get() / segment.size.get() > compactionThreshold) {
+                continue;
+            }
+            try {
+                compact(segment);
+            } catch (IOException e) {
+                LOG.error("Failed to compact {}", segment.file, e);
+            }
+        }
+    }
+
+    private synchronized void compact(Segment segment) throws IOException {
+        long sizeBefore = segment.size.get();
+        long liveBefore = segment.liveBytes.get();
+        boolean olderSegmentsExist = segments.firstKey() < segment.id;
+        segment.scan((file, offset, keyLength, length, lastModified) -> {
+            if (length == DELETED) {
+                if (olderSegmentsExist && !index.containsKey(file)) {
+                    append(file, null, 0);
+                }
+                return;
+            }
+            Location location = index.get(file);
+            if (location != null && location.segment() == segment && location.offset() == offset) {
+                append(file, segment.read(location), lastModified);
+            }
+        });
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.delete(segment.file);
+        LOG.info("Compacted {} moving {} live bytes of {}", segment.file.getFileName(), liveBefore, sizeBefore);
+    }
+
+    private interface RecordConsumer {
+        void accept(Path file, int offset, int keyLength, int length, long lastModified) throws IOException;
+    }
+
+    private class Segment {
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final AtomicLong size;
+        private final AtomicLong liveBytes = new AtomicLong();
+        private volatile MappedByteBuffer sealed;
+
+        private Segment(int id, Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = new AtomicLong(channel.size());
+        }
+
+        private byte[] read(Location location) throws IOException {
+            int dataOffset = location.offset() + HEADER_SIZE + location.keyLength();
+            byte[] content = new byte[location.length()];
+            MappedByteBuffer mapping = sealed;
+            if (mapping != null) {
+                mapping.get(dataOffset, content);
+                return content;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, dataOffset + buffer.position()) < 0) {
+                    throw new EOFException("Record of " + location.length() + " bytes at " + location.offset() + " is outside of " + file);
+                }
+            }
+            return content;
+        }
+
+        private synchronized void seal() throws IOException {
+            channel.force(true);
+            sealed = channel.map(FileChannel.MapMode.READ_ONLY, 0, size.get());
+        }
+
+        private void load() throws IOException {
+            scan((path, offset, keyLength, length, lastModified) -> {
+                if (length == DELETED) {
+                    remove(path);
+                } else {
+                    put(path, new Location(this, offset, keyLength, length, lastModified));
+                }
+            });
+        }
+
+        private void scan(RecordConsumer consumer) throws IOException {
+            long end = size.get();
+            if (end == 0) {
+                return;
+            }
+            MappedByteBuffer buffer = sealed != null ? sealed : channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            int offset = 0;
+            while (offset + HEADER_SIZE <= end) {
+                int keyLength = buffer.getShort(offset);
+                if (keyLength <= 0 || offset + HEADER_SIZE + keyLength > end) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                buffer.get(offset + Short.BYTES, key);
+                long lastModified = buffer.getLong(offset + Short.BYTES + keyLength);
+                int length = buffer.getInt(offset + Short.BYTES + keyLength + Long.BYTES);
+                int recordSize = HEADER_SIZE + keyLength + Math.max(length, 0);
+                if (length < DELETED || offset + recordSize > end) {
+                    break;
+                }
+                consumer.accept(root.resolve(new String(key, StandardCharsets.UTF_8)), offset, keyLength, length, lastModified);
+                offset += recordSize;
+            }
+            if (offset < end) {
+                LOG.warn("Truncating {} from {} to {} bytes after an incomplete record", file, end, offset);
+                channel.truncate(offset);
+                size.set(offset);
+            }
+        }
+    }
+}
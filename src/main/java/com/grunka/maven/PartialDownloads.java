@@ -0,0 +1,118 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class PartialDownloads {
+    private static final Logger LOG = LoggerFactory.getLogger(PartialDownloads.class);
+    private static final long MINIMUM_SIZE = 1024 * 1024;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(\\d+|\\*)");
+    private final Path partialDirectory;
+
+    PartialDownloads(Path partialDirectory) {
+        this.partialDirectory = partialDirectory;
+    }
+
+    private Path partFile(String repositoryName, String path) {
+        return partialDirectory.resolve(repositoryName).resolve(path + ".part");
+    }
+
+    private Path metaFile(String repositoryName, String path) {
+        return partialDirectory.resolve(repositoryName).resolve(path + ".part.meta");
+    }
+
+    boolean hasPart(String repositoryName, String path) {
+        Path partFile = partFile(repositoryName, path);
+        try {
+            return Files.isRegularFile(partFile) && Files.size(partFile) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    HttpRequest.Builder resume(String repositoryName, String path, URI url, HttpRequest.Builder request) {
+        if (!hasPart(repositoryName, path)) {
+            return request;
+        }
+        try {
+            Properties meta = new Properties();
+            try (InputStream input = Files.newInputStream(metaFile(repositoryName, path))) {
+                meta.load(input);
+            }
+            String validator = meta.getProperty("etag", meta.getProperty("lastModified"));
+            if (url.toString().equals(meta.getProperty("url")) && validator != null) {
+                long size = Files.size(partFile(repositoryName, path));
+                LOG.info("Resuming download of {} from {} at {} bytes", path, url, size);
+                return request.header("Range", "bytes=" + size + "-").header("If-Range", validator);
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not read partial download metadata for {}", path, e);
+        }
+        discard(repositoryName, path);
+        return request;
+    }
+
+    HttpResponse.BodyHandler<Optional<byte[]>> bodyHandler(String repositoryName, String path, URI url) {
+        return responseInfo -> {
+            Path partFile = partFile(repositoryName, path);
+            try {
+                if (responseInfo.statusCode() == 206) {
+                    Matcher contentRange = CONTENT_RANGE.matcher(responseInfo.headers().firstValue("Content-Range").orElse(""));
+                    if (!contentRange.matches() || Long.parseLong(contentRange.group(1)) != Files.size(partFile)) {
+                        discard(repositoryName, path);
+                        throw new IOException("Unexpected Content-Range for " + url);
+                    }
+                    return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofFile(partFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND), file -> Optional.empty());
+                }
+                if (responseInfo.statusCode() == 200 && responseInfo.headers().firstValueAsLong("Content-Length").orElse(0) >= MINIMUM_SIZE) {
+                    writeMeta(repositoryName, path, url, responseInfo.headers());
+                    return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofFile(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), file -> Optional.empty());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), Optional::of);
+        };
+    }
+
+    private void writeMeta(String repositoryName, String path, URI url, HttpHeaders headers) throws IOException {
+        Path metaFile = metaFile(repositoryName, path);
+        Files.createDirectories(metaFile.getParent());
+        Properties meta = new Properties();
+        meta.setProperty("url", url.toString());
+        headers.firstValue("ETag").filter(etag -> !etag.startsWith("W/")).ifPresent(etag -> meta.setProperty("etag", etag));
+        headers.firstValue("Last-Modified").ifPresent(lastModified -> meta.setProperty("lastModified", lastModified));
+        try (OutputStream output = Files.newOutputStream(metaFile)) {
+            meta.store(output, null);
+        }
+    }
+
+    byte[] read(String repositoryName, String path) throws IOException {
+        return Files.readAllBytes(partFile(repositoryName, path));
+    }
+
+    void discard(String repositoryName, String path) {
+        try {
+            Files.deleteIfExists(partFile(repositoryName, path));
+            Files.deleteIfExists(metaFile(repositoryName, path));
+        } catch (IOException e) {
+            LOG.warn("Failed to remove partial download of {}", path, e);
+        }
+    }
+}
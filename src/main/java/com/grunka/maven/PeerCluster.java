@@ -0,0 +1,74 @@
+package com.grunka.maven;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+public class PeerCluster {
+    static final String PEER_HEADER = "X-Repository-Peer";
+    static final String SOURCE_HEADER = "X-Repository-Source";
+    private final String nodeName;
+    private final Map<String, Repository> peers;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final java.time.Duration peerTimeout;
+
+    public PeerCluster(ClusterConfiguration configuration) {
+        this.nodeName = configuration.nodeName;
+        this.peers = Map.copyOf(configuration.peers);
+        this.peerTimeout = java.time.Duration.ofMillis(configuration.peerTimeout.toMilliseconds());
+        for (int i = 0; i < configuration.virtualNodes; i++) {
+            ring.put(hash(nodeName + "#" + i), nodeName);
+            for (String peer : peers.keySet()) {
+                ring.put(hash(peer + "#" + i), peer);
+            }
+        }
+    }
+
+    String nodeName() {
+        return nodeName;
+    }
+
+    java.time.Duration peerTimeout() {
+        return peerTimeout;
+    }
+
+    Optional<Map.Entry<String, Repository>> owner(String path) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(artifactKey(path)));
+        if (owner == null) {
+            owner = ring.firstEntry();
+        }
+        if (owner.getValue().equals(nodeName)) {
+            return Optional.empty();
+        }
+        return Optional.of(Map.entry(owner.getValue(), peers.get(owner.getValue())));
+    }
+
+    static String artifactKey(String path) {
+        int end = path.length();
+        for (int i = 0; i < 2 && end > 0; i++) {
+            int slash = path.lastIndexOf('/', end - 1);
+            if (slash <= 0) {
+                return path;
+            }
+            end = slash;
+        }
+        return path.substring(0, end);
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error("MD5 did not exist", e);
+        }
+    }
+}
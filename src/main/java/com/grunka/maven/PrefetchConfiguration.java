@@ -0,0 +1,9 @@
+package com.grunka.maven;
+
+public class PrefetchConfiguration {
+    public boolean enabled = false;
+    public int maxDepth = 3;
+    public int threads = 2;
+    public int queueSize = 1000;
+    public double requestsPerSecond = 20;
+}
@@ -0,0 +1,191 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class Prefetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(Prefetcher.class);
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+    private static final Set<String> NON_TRANSITIVE_SCOPES = Set.of("test", "provided", "system");
+    private final ExecutorService executor;
+    private final Function<String, CompletableFuture<Boolean>> fetcher;
+    private final int maxDepth;
+    private final long nanosBetweenRequests;
+    private final AtomicLong nextRequestAt = new AtomicLong();
+    private final Map<String, Integer> queued = new ConcurrentHashMap<>();
+
+    public Prefetcher(ExecutorService executor, PrefetchConfiguration configuration, Function<String, CompletableFuture<Boolean>> fetcher) {
+        this.executor = executor;
+        this.fetcher = fetcher;
+        this.maxDepth = configuration.maxDepth;
+        this.nanosBetweenRequests = (long) (TimeUnit.SECONDS.toNanos(1) / configuration.requestsPerSecond);
+    }
+
+    public static ThreadFactory threadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "prefetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
+    public void pomDownloaded(String path, byte[] content) {
+        int depth = queued.getOrDefault(path, 0);
+        if (depth >= maxDepth) {
+            return;
+        }
+        submit(path, () -> {
+            for (String referencedPath : referencedPaths(content)) {
+                queue(referencedPath, depth + 1);
+            }
+        });
+    }
+
+    private void queue(String path, int depth) {
+        if (queued.putIfAbsent(path, depth) != null) {
+            return;
+        }
+        submit(path, () -> {
+            throttle();
+            LOG.debug("Prefetching {} at depth {}", path, depth);
+            fetcher.apply(path).whenComplete((found, t) -> queued.remove(path));
+        });
+    }
+
+    private void submit(String path, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Prefetch queue full, skipping {}", path);
+            queued.remove(path);
+        }
+    }
+
+    private void throttle() {
+        long now = System.nanoTime();
+        long requestAt = nextRequestAt.getAndAccumulate(now, (next, current) -> Math.max(next, current) + nanosBetweenRequests);
+        long waitNanos = Math.max(requestAt, now) - now;
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static List<String> referencedPaths(byte[] pom) {
+        Element project;
+        try {
+            project = Xml.parse(pom);
+        } catch (IOException e) {
+            LOG.debug("Could not parse pom for prefetching", e);
+            return List.of();
+        }
+        Map<String, String> properties = new HashMap<>();
+        Optional<Element> parent = Xml.child(project, "parent");
+        parent.ifPresent(p -> {
+            Xml.text(p, "groupId").ifPresent(v -> properties.put("project.parent.groupId", v));
+            Xml.text(p, "version").ifPresent(v -> properties.put("project.parent.version", v));
+        });
+        Xml.text(project, "groupId").or(() -> Optional.ofNullable(properties.get("project.parent.groupId")))
+                .ifPresent(v -> properties.put("project.groupId", v));
+        Xml.text(project, "version").or(() -> Optional.ofNullable(properties.get("project.parent.version")))
+                .ifPresent(v -> properties.put("project.version", v));
+        Xml.text(project, "artifactId").ifPresent(v -> properties.put("project.artifactId", v));
+        for (String key : List.copyOf(properties.keySet())) {
+            properties.put(key.substring("project.".length()), properties.get(key));
+            properties.put("pom." + key.substring("project.".length()), properties.get(key));
+        }
+        Xml.child(project, "properties").ifPresent(p -> Xml.children(p).forEach(property -> properties.put(property.getTagName(), property.getTextContent().trim())));
+
+        Map<String, String> managedVersions = new HashMap<>();
+        Set<String> paths = new LinkedHashSet<>();
+        parent.ifPresent(p -> coordinatePath(p, properties, "pom", null).ifPresent(paths::add));
+        Xml.child(project, "dependencyManagement").flatMap(m -> Xml.child(m, "dependencies")).ifPresent(dependencies -> {
+            for (Element dependency : Xml.children(dependencies)) {
+                Optional<String> groupId = Xml.text(dependency, "groupId").map(v -> resolve(v, properties));
+                Optional<String> artifactId = Xml.text(dependency, "artifactId").map(v -> resolve(v, properties));
+                Optional<String> version = Xml.text(dependency, "version").map(v -> resolve(v, properties));
+                if (groupId.isPresent() && artifactId.isPresent() && version.isPresent()) {
+                    managedVersions.put(groupId.get() + ":" + artifactId.get(), version.get());
+                }
+                if ("import".equals(Xml.text(dependency, "scope").orElse(null))) {
+                    coordinatePath(dependency, properties, "pom", null).ifPresent(paths::add);
+                }
+            }
+        });
+        Xml.child(project, "dependencies").ifPresent(dependencies -> {
+            for (Element dependency : Xml.children(dependencies)) {
+                if (NON_TRANSITIVE_SCOPES.contains(Xml.text(dependency, "scope").orElse("compile")) || "true".equals(Xml.text(dependency, "optional").orElse(null))) {
+                    continue;
+                }
+                String managedVersion = managedVersions.get(resolve(Xml.text(dependency, "groupId").orElse(""), properties) + ":" + resolve(Xml.text(dependency, "artifactId").orElse(""), properties));
+                coordinatePath(dependency, properties, "pom", managedVersion).ifPresent(paths::add);
+                String type = Xml.text(dependency, "type").orElse("jar");
+                String classifier = Xml.text(dependency, "classifier").map(v -> resolve(v, properties)).orElse(null);
+                switch (type) {
+                    case "jar", "bundle", "maven-plugin" -> coordinatePath(dependency, properties, "jar", managedVersion, classifier).ifPresent(paths::add);
+                    case "test-jar" -> coordinatePath(dependency, properties, "jar", managedVersion, "tests").ifPresent(paths::add);
+                    default -> {
+                    }
+                }
+            }
+        });
+        return new ArrayList<>(paths);
+    }
+
+    private static Optional<String> coordinatePath(Element element, Map<String, String> properties, String extension, String defaultVersion) {
+        return coordinatePath(element, properties, extension, defaultVersion, null);
+    }
+
+    private static Optional<String> coordinatePath(Element element, Map<String, String> properties, String extension, String defaultVersion, String classifier) {
+        String groupId = Xml.text(element, "groupId").map(v -> resolve(v, properties)).orElse(null);
+        String artifactId = Xml.text(element, "artifactId").map(v -> resolve(v, properties)).orElse(null);
+        String version = Xml.text(element, "version").map(v -> resolve(v, properties)).orElse(defaultVersion);
+        if (!isConcrete(groupId) || !isConcrete(artifactId) || !isConcrete(version) || version.endsWith("-SNAPSHOT") || (classifier != null && !isConcrete(classifier))) {
+            return Optional.empty();
+        }
+        return Optional.of(groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + (classifier == null ? "" : "-" + classifier) + "." + extension);
+    }
+
+    private static boolean isConcrete(String value) {
+        return value != null && !value.isEmpty() && !value.contains("${") && !value.contains("[") && !value.contains("(") && !value.contains(",") && !value.contains("/");
+    }
+
+    private static String resolve(String value, Map<String, String> properties) {
+        for (int i = 0; i < 5 && value.contains("${"); i++) {
+            Matcher matcher = PROPERTY_REFERENCE.matcher(value);
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(properties.getOrDefault(matcher.group(1), matcher.group())));
+            }
+            matcher.appendTail(resolved);
+            value = resolved.toString();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,20 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.LinkedHashMap;
+
+public class ReplicationConfiguration {
+    @NotNull
+    public LinkedHashMap<String, Repository> followers = new LinkedHashMap<>();
+    public String leaderUser = null;
+    public int batchSize = 100;
+    @NotNull
+    public DataSize maxBatchBytes = DataSize.mebibytes(64);
+    @NotNull
+    public Duration interval = Duration.seconds(1);
+    @NotNull
+    public Duration maxBackoff = Duration.minutes(5);
+}
@@ -0,0 +1,191 @@
+package com.grunka.maven;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ReplicationOutbox implements Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicationOutbox.class);
+    private static final int COMPACT_AFTER_ACKNOWLEDGED = 10_000;
+    private final Path directory;
+    private final Path outboxFile;
+    private final Set<String> followers;
+    private final ConcurrentSkipListMap<Long, Entry> pending = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicLong> cursors = new ConcurrentHashMap<>();
+    private final AtomicLong acknowledgedSinceCompaction = new AtomicLong();
+    private FileChannel channel;
+    private long nextSequence = 1;
+
+    public record Entry(long sequence, long timestamp, String path) {
+    }
+
+    public ReplicationOutbox(Path directory, Set<String> followers) {
+        this.directory = directory;
+        this.outboxFile = directory.resolve("outbox.log");
+        this.followers = followers;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        Files.createDirectories(directory);
+        long lastSequence = 0;
+        if (Files.exists(outboxFile)) {
+            long validBytes = 0;
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(outboxFile)))) {
+                while (true) {
+                    Entry entry = readEntry(input);
+                    if (entry == null) {
+                        break;
+                    }
+                    pending.put(entry.sequence(), entry);
+                    lastSequence = Math.max(lastSequence, entry.sequence());
+                    validBytes += encode(entry).length;
+                }
+            }
+            if (validBytes < Files.size(outboxFile)) {
+                LOG.warn("Truncating {} to {} bytes after an incomplete entry", outboxFile, validBytes);
+                try (FileChannel truncate = FileChannel.open(outboxFile, StandardOpenOption.WRITE)) {
+                    truncate.truncate(validBytes);
+                }
+            }
+        }
+        for (String follower : followers) {
+            Path cursorFile = cursorFile(follower);
+            long cursor = Files.exists(cursorFile) ? Long.parseLong(Files.readString(cursorFile).trim()) : 0;
+            cursors.put(follower, new AtomicLong(cursor));
+            lastSequence = Math.max(lastSequence, cursor);
+        }
+        nextSequence = lastSequence + 1;
+        pending.headMap(minimumCursor(), true).clear();
+        channel = FileChannel.open(outboxFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        LOG.info("Loaded {} pending replication entries from {}", pending.size(), outboxFile);
+    }
+
+    @Override
+    public synchronized void stop() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private Path cursorFile(String follower) {
+        return directory.resolve(follower + ".cursor");
+    }
+
+    private static Entry readEntry(DataInputStream input) throws IOException {
+        try {
+            long sequence = input.readLong();
+            long timestamp = input.readLong();
+            byte[] path = new byte[input.readUnsignedShort()];
+            input.readFully(path);
+            return new Entry(sequence, timestamp, new String(path, StandardCharsets.UTF_8));
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            byte[] path = entry.path().getBytes(StandardCharsets.UTF_8);
+            output.writeLong(entry.sequence());
+            output.writeLong(entry.timestamp());
+            output.writeShort(path.length);
+            output.write(path);
+        }
+        return bytes.toByteArray();
+    }
+
+    public void append(String path) throws IOException {
+        synchronized (this) {
+            Entry entry = new Entry(nextSequence, System.currentTimeMillis(), path);
+            ByteBuffer buffer = ByteBuffer.wrap(encode(entry));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            nextSequence++;
+            pending.put(entry.sequence(), entry);
+        }
+    }
+
+    public synchronized void flush() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            LOG.error("Failed to flush {}", outboxFile, e);
+        }
+    }
+
+    public synchronized long head() {
+        return nextSequence - 1;
+    }
+
+    public long cursor(String follower) {
+        return cursors.get(follower).get();
+    }
+
+    public List<Entry> after(long sequence, int limit) {
+        return pending.tailMap(sequence, false).values().stream().limit(limit).toList();
+    }
+
+    public void acknowledge(String follower, long sequence) throws IOException {
+        Path cursorFile = cursorFile(follower);
+        Path temporaryFile = cursorFile.resolveSibling(cursorFile.getFileName() + ".tmp");
+        Files.writeString(temporaryFile, Long.toString(sequence));
+        Files.move(temporaryFile, cursorFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long previous = cursors.get(follower).getAndSet(sequence);
+        Map<Long, Entry> acknowledged = pending.headMap(minimumCursor(), true);
+        int removed = acknowledged.size();
+        acknowledged.clear();
+        if (acknowledgedSinceCompaction.addAndGet(removed) >= COMPACT_AFTER_ACKNOWLEDGED) {
+            compact();
+        }
+        LOG.debug("Follower {} acknowledged {} to {}", follower, previous, sequence);
+    }
+
+    private long minimumCursor() {
+        return cursors.values().stream().mapToLong(AtomicLong::get).min().orElse(Long.MAX_VALUE);
+    }
+
+    private synchronized void compact() throws IOException {
+        acknowledgedSinceCompaction.set(0);
+        Path temporaryFile = outboxFile.resolveSibling(outboxFile.getFileName() + ".tmp");
+        try (FileChannel output = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : pending.values()) {
+                ByteBuffer buffer = ByteBuffer.wrap(encode(entry));
+                while (buffer.hasRemaining()) {
+                    output.write(buffer);
+                }
+            }
+            output.force(false);
+        }
+        channel.close();
+        Files.move(temporaryFile, outboxFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(outboxFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        LOG.info("Compacted replication outbox to {} pending entries", pending.size());
+    }
+
+    long oldestPendingTimestamp(String follower) {
+        Map.Entry<Long, Entry> oldest = pending.higherEntry(cursor(follower));
+        return oldest == null ? 0 : oldest.getValue().timestamp();
+    }
+}
@@ -0,0 +1,50 @@
+package com.grunka.maven;
+
+import com.grunka.maven.authentication.Access;
+import com.grunka.maven.authentication.User;
+import io.dropwizard.auth.Auth;
+import jakarta.annotation.security.PermitAll;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Path("/replication")
+@PermitAll
+public class ReplicationResource {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicationResource.class);
+    private final MavenRepositoryResource repositoryResource;
+    private final String leaderUser;
+
+    public ReplicationResource(MavenRepositoryResource repositoryResource, String leaderUser) {
+        this.repositoryResource = repositoryResource;
+        this.leaderUser = leaderUser;
+    }
+
+    @POST
+    @Consumes("application/x-tar")
+    public Response replicate(InputStream tar, @Auth User user) {
+        if (user.getAccess().compareTo(Access.write) < 0 || !leaderUser.equals(user.getName())) {
+            throw new WebApplicationException(Response.Status.UNAUTHORIZED);
+        }
+        try {
+            int files = TarReader.read(tar, repositoryResource::replicated);
+            LOG.info("Received {} replicated files", files);
+            return Response.noContent().build();
+        } catch (IOException e) {
+            LOG.error("Failed to receive replicated files", e);
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Invalid replication batch")
+                    .build();
+        }
+    }
+}
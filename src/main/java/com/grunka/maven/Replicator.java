@@ -0,0 +1,119 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class Replicator implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(Replicator.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(1);
+    private static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toNanos(1);
+    private final String name;
+    private final Repository follower;
+    private final ReplicationOutbox outbox;
+    private final Storage storage;
+    private final Path localDirectory;
+    private final HttpClient httpClient;
+    private final int batchSize;
+    private final long maxBatchBytes;
+    private final long maxBackoff;
+    private int failures = 0;
+    private long nextAttempt = 0;
+
+    public Replicator(String name, Repository follower, ReplicationOutbox outbox, Storage storage, Path localDirectory, HttpClient httpClient, ReplicationConfiguration configuration) {
+        this.name = name;
+        this.follower = follower;
+        this.outbox = outbox;
+        this.storage = storage;
+        this.localDirectory = localDirectory.toAbsolutePath();
+        this.httpClient = httpClient;
+        this.batchSize = configuration.batchSize;
+        this.maxBatchBytes = configuration.maxBatchBytes.toBytes();
+        this.maxBackoff = configuration.maxBackoff.toNanoseconds();
+    }
+
+    public long lagEntries() {
+        return outbox.head() - outbox.cursor(name);
+    }
+
+    public long lagSeconds() {
+        long oldest = outbox.oldestPendingTimestamp(name);
+        return oldest == 0 ? 0 : TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - oldest);
+    }
+
+    @Override
+    public void run() {
+        if (failures > 0 && System.nanoTime() - nextAttempt < 0) {
+            return;
+        }
+        try {
+            List<ReplicationOutbox.Entry> entries;
+            while (!(entries = outbox.after(outbox.cursor(name), batchSize)).isEmpty()) {
+                outbox.acknowledge(name, send(entries));
+                if (failures > 0) {
+                    LOG.info("Replication to {} recovered after {} failures", name, failures);
+                    failures = 0;
+                }
+            }
+        } catch (Exception e) {
+            failures++;
+            long backoff = Math.min(maxBackoff, INITIAL_BACKOFF << Math.min(failures - 1, 30));
+            nextAttempt = System.nanoTime() + backoff;
+            LOG.warn("Replication to {} failed {} times, {} entries behind, retrying in {} s", name, failures, lagEntries(), TimeUnit.NANOSECONDS.toSeconds(backoff), e);
+        }
+    }
+
+    private long send(List<ReplicationOutbox.Entry> entries) throws IOException, InterruptedException {
+        TarBuffer tar = new TarBuffer();
+        Set<String> paths = new HashSet<>();
+        long sequence = 0;
+        int files = 0;
+        try (TarWriter tarWriter = new TarWriter(tar)) {
+            for (ReplicationOutbox.Entry entry : entries) {
+                if (files > 0 && tar.size() >= maxBatchBytes) {
+                    break;
+                }
+                sequence = entry.sequence();
+                Path file = localDirectory.resolve(entry.path());
+                if (paths.add(entry.path()) && storage.isFile(file)) {
+                    FileContent content = storage.read(file);
+                    tarWriter.write(entry.path(), content.content(), content.lastModified().toInstant());
+                    files++;
+                }
+            }
+        }
+        if (files == 0) {
+            return sequence;
+        }
+        HttpRequest request = follower.request("replication")
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/x-tar")
+                .POST(HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(tar::inputStream), tar.size()))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Follower " + name + " responded with " + response.statusCode() + " " + response.body());
+        }
+        LOG.debug("Replicated {} files to {}", files, name);
+        return sequence;
+    }
+
+    private static class TarBuffer extends ByteArrayOutputStream {
+        InputStream inputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
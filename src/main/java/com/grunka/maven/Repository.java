@@ -1,6 +1,19 @@
 package com.grunka.maven;
 
+import jakarta.ws.rs.core.HttpHeaders;
+
 import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 public record Repository(URI url, String username, String password) {
+    HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(url.resolve(path));
+        if (username != null && password != null) {
+            String usernameAndPassword = username + ":" + password;
+            builder = builder.header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString(usernameAndPassword.getBytes(StandardCharsets.UTF_8)));
+        }
+        return builder;
+    }
 }
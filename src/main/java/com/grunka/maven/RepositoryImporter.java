@@ -0,0 +1,215 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class RepositoryImporter {
+    private static final Logger LOG = LoggerFactory.getLogger(RepositoryImporter.class);
+    private static final List<String> ARTIFACT_SUFFIXES = List.of(".jar", ".pom");
+    private final Path source;
+    private final Path target;
+    private final Storage storage;
+    private final boolean link;
+    private final int threads;
+    private final LongAdder importedFiles = new LongAdder();
+    private final LongAdder importedBytes = new LongAdder();
+    private final LongAdder existingFiles = new LongAdder();
+    private final LongAdder invalidFiles = new LongAdder();
+    private final LongAdder ignoredFiles = new LongAdder();
+    private final LongAdder failedFiles = new LongAdder();
+
+    public RepositoryImporter(Path source, Path target, Storage storage, boolean link, int threads) {
+        this.source = source.toAbsolutePath().normalize();
+        this.target = target.toAbsolutePath().normalize();
+        this.storage = storage;
+        this.link = link;
+        this.threads = threads;
+    }
+
+    public String run() throws IOException {
+        Files.createDirectories(target);
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "import-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> LOG.info("{}", progress(start)), 5, 5, TimeUnit.SECONDS);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ImportDirectory(source));
+        } finally {
+            pool.shutdown();
+            reporter.shutdownNow();
+        }
+        return progress(start);
+    }
+
+    private String progress(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long files = importedFiles.sum();
+        long bytes = importedBytes.sum();
+        return String.format(Locale.ROOT, "imported %d files, %d MB in %.1f s (%.0f files/s, %.1f MB/s), %d already present, %d invalid, %d ignored, %d failed",
+                files, bytes >> 20, seconds, files / seconds, (bytes >> 20) / seconds, existingFiles.sum(), invalidFiles.sum(), ignoredFiles.sum(), failedFiles.sum());
+    }
+
+    private class ImportDirectory extends RecursiveAction {
+        private final Path directory;
+
+        private ImportDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            List<ImportDirectory> subdirectories = new ArrayList<>();
+            List<Path> artifacts = new ArrayList<>();
+            try (Stream<Path> list = Files.list(directory)) {
+                list.forEach(path -> {
+                    if (Files.isDirectory(path)) {
+                        if (!path.getFileName().toString().startsWith(".")) {
+                            subdirectories.add(new ImportDirectory(path));
+                        }
+                    } else if (isArtifact(path)) {
+                        artifacts.add(path);
+                    } else if (!isChecksum(path)) {
+                        ignoredFiles.increment();
+                    }
+                });
+            } catch (IOException e) {
+                LOG.error("Could not list {}", directory, e);
+                failedFiles.increment();
+                return;
+            }
+            List<ImportArtifact> artifactTasks = artifacts.stream().map(ImportArtifact::new).toList();
+            invokeAll(subdirectories);
+            invokeAll(artifactTasks);
+        }
+    }
+
+    private class ImportArtifact extends RecursiveAction {
+        private final Path artifact;
+
+        private ImportArtifact(Path artifact) {
+            this.artifact = artifact;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                importArtifact(artifact);
+            } catch (IOException | UncheckedIOException e) {
+                LOG.error("Failed to import {}", artifact, e);
+                failedFiles.increment();
+            }
+        }
+    }
+
+    private boolean isArtifact(Path path) {
+        String fileName = path.getFileName().toString();
+        if (ARTIFACT_SUFFIXES.stream().noneMatch(fileName::endsWith)) {
+            return false;
+        }
+        Path relative = source.relativize(path);
+        if (relative.getNameCount() < 4) {
+            invalidFiles.increment();
+            LOG.warn("{} is not in a groupId/artifactId/version directory", relative);
+            return false;
+        }
+        String artifactId = relative.getName(relative.getNameCount() - 3).toString();
+        if (!fileName.startsWith(artifactId + "-")) {
+            invalidFiles.increment();
+            LOG.warn("{} does not match the artifactId {} of its directory", relative, artifactId);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isChecksum(Path path) {
+        String fileName = path.getFileName().toString();
+        return ARTIFACT_SUFFIXES.stream().anyMatch(suffix -> FileContent.CHECKSUM_SUFFIXES.stream().anyMatch(checksum -> fileName.endsWith(suffix + checksum)));
+    }
+
+    private void importArtifact(Path artifact) throws IOException {
+        Path targetFile = target.resolve(source.relativize(artifact).toString());
+        if (storage.isFile(targetFile)) {
+            existingFiles.increment();
+            return;
+        }
+        byte[] content = link ? null : Files.readAllBytes(artifact);
+        MessageDigest sha1 = messageDigest("SHA-1");
+        MessageDigest md5 = messageDigest("MD5");
+        if (content != null) {
+            sha1.update(content);
+            md5.update(content);
+        } else {
+            try (InputStream inputStream = Files.newInputStream(artifact)) {
+                byte[] buffer = new byte[65536];
+                int read;
+                while ((read = inputStream.read(buffer)) >= 0) {
+                    sha1.update(buffer, 0, read);
+                    md5.update(buffer, 0, read);
+                }
+            }
+        }
+        String sha1Hex = HexFormat.of().formatHex(sha1.digest());
+        String md5Hex = HexFormat.of().formatHex(md5.digest());
+        Path sourceSha1 = artifact.resolveSibling(artifact.getFileName() + ".sha1");
+        if (Files.exists(sourceSha1)) {
+            String[] expected = Files.readString(sourceSha1, StandardCharsets.UTF_8).trim().split("\\s+");
+            if (!expected[0].equalsIgnoreCase(sha1Hex)) {
+                LOG.warn("Checksum of {} was {} but {} says {}", artifact, sha1Hex, sourceSha1.getFileName(), expected[0]);
+                invalidFiles.increment();
+                return;
+            }
+        }
+        if (content != null) {
+            storage.write(targetFile, content, Files.getLastModifiedTime(artifact));
+        } else {
+            Files.createDirectories(targetFile.getParent());
+            try {
+                Files.createLink(targetFile, artifact);
+            } catch (FileAlreadyExistsException e) {
+                existingFiles.increment();
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                LOG.debug("Could not link {}, copying instead", artifact, e);
+                Files.copy(artifact, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+        storage.write(targetFile.resolveSibling(targetFile.getFileName() + ".sha1"), sha1Hex.getBytes(StandardCharsets.UTF_8), null);
+        storage.write(targetFile.resolveSibling(targetFile.getFileName() + ".md5"), md5Hex.getBytes(StandardCharsets.UTF_8), null);
+        importedFiles.increment();
+        importedBytes.add(Files.size(artifact));
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error(algorithm + " did not exist", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class SearchConfiguration {
+    public boolean enabled = false;
+    @Min(1)
+    public int queueSize = 10_000;
+    @NotNull
+    public Duration saveInterval = Duration.minutes(5);
+    @Min(1)
+    public int maxResults = 100;
+}
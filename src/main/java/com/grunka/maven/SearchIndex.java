@@ -0,0 +1,385 @@
+package com.grunka.maven;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class SearchIndex implements Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(SearchIndex.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_MISSED = 10_000;
+    private final Path storageDirectory;
+    private final Path indexFile;
+    private final Storage storage;
+    private final Executor indexExecutor;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Artifact> artifacts = new ArrayList<>();
+    private final Map<String, Integer> artifactIds = new HashMap<>();
+    private final TreeMap<String, int[]> byCoordinates = new TreeMap<>();
+    private final TreeMap<String, int[]> byArtifactId = new TreeMap<>();
+    private final List<String> classNames = new ArrayList<>();
+    private final Map<String, Integer> classIds = new HashMap<>();
+    private final List<int[]> classArtifacts = new ArrayList<>();
+    private final TreeMap<String, int[]> bySimpleName = new TreeMap<>();
+    private final Set<Update> missed = ConcurrentHashMap.newKeySet();
+    private volatile boolean rescan = false;
+    private volatile boolean dirty = false;
+
+    private record Update(String repository, String path) {
+    }
+
+    public record Artifact(String repository, String groupId, String artifactId, String version) {
+        String coordinates() {
+            return groupId + ":" + artifactId + ":" + version;
+        }
+    }
+
+    public record Match(Artifact artifact, List<String> classes) {
+    }
+
+    public SearchIndex(Path storageDirectory, Storage storage, Executor indexExecutor) {
+        this.storageDirectory = storageDirectory.toAbsolutePath();
+        this.indexFile = this.storageDirectory.resolve(".search").resolve("index.dat");
+        this.storage = storage;
+        this.indexExecutor = indexExecutor;
+    }
+
+    @Override
+    public void start() throws IOException {
+        if (Files.exists(indexFile)) {
+            try {
+                load();
+                LOG.info("Loaded search index with {} artifacts and {} classes", artifacts.size(), classNames.size());
+                return;
+            } catch (IOException e) {
+                LOG.warn("Could not load search index {}, rebuilding it", indexFile, e);
+                clear();
+            }
+        }
+        indexExecutor.execute(this::indexExistingFiles);
+    }
+
+    @Override
+    public void stop() throws IOException {
+        save();
+    }
+
+    public void stored(String repository, String path) {
+        if (!path.endsWith(".pom") && !path.endsWith(".jar")) {
+            return;
+        }
+        try {
+            indexExecutor.execute(() -> index(repository, path));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Search index queue is full, indexing {} later", path);
+            if (missed.size() < MAX_MISSED) {
+                missed.add(new Update(repository, path));
+            } else {
+                rescan = true;
+            }
+        }
+    }
+
+    public void retryMissed() {
+        if (rescan) {
+            missed.clear();
+            rescan = false;
+            try {
+                indexExecutor.execute(this::indexExistingFiles);
+            } catch (RejectedExecutionException e) {
+                rescan = true;
+            }
+            return;
+        }
+        for (Update update : List.copyOf(missed)) {
+            try {
+                indexExecutor.execute(() -> index(update.repository(), update.path()));
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+            missed.remove(update);
+        }
+    }
+
+    private static Artifact parse(String repository, String path) {
+        ArtifactPath artifactPath;
+        try {
+            artifactPath = ArtifactPath.parse(path);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (artifactPath.groupId() == null || artifactPath.version() == null || artifactPath.metadata() || !artifactPath.fileName().startsWith(artifactPath.artifactId() + "-")) {
+            return null;
+        }
+        return new Artifact(repository, artifactPath.groupId(), artifactPath.artifactId(), artifactPath.version());
+    }
+
+    private static boolean isMainJar(String path) {
+        String classifier = ArtifactPath.parse(path).classifier();
+        return !"sources".equals(classifier) && !"javadoc".equals(classifier) && !"tests".equals(classifier);
+    }
+
+    private void index(String repository, String path) {
+        Artifact artifact = parse(repository, path);
+        if (artifact == null) {
+            return;
+        }
+        List<String> classes = List.of();
+        if (path.endsWith(".jar")) {
+            if (!isMainJar(path)) {
+                return;
+            }
+            try (SeekableByteChannel jar = storage.open(storageDirectory.resolve(repository).resolve(path))) {
+                classes = JarClasses.classNames(jar);
+            } catch (IOException e) {
+                LOG.warn("Could not read {} for the search index", path, e);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            add(artifact, classes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty = true;
+    }
+
+    private void add(Artifact artifact, List<String> classes) {
+        Integer existing = artifactIds.get(artifact.repository() + "/" + artifact.coordinates());
+        int id;
+        if (existing == null) {
+            id = artifacts.size();
+            artifacts.add(artifact);
+            artifactIds.put(artifact.repository() + "/" + artifact.coordinates(), id);
+            byCoordinates.merge(artifact.coordinates(), new int[]{id}, SearchIndex::union);
+            byArtifactId.merge(artifact.artifactId(), new int[]{id}, SearchIndex::union);
+        } else {
+            id = existing;
+        }
+        for (String className : classes) {
+            Integer classId = classIds.get(className);
+            if (classId == null) {
+                classId = classNames.size();
+                classNames.add(className);
+                classIds.put(className, classId);
+                classArtifacts.add(new int[0]);
+                bySimpleName.merge(simpleName(className), new int[]{classId}, SearchIndex::union);
+            }
+            classArtifacts.set(classId, union(classArtifacts.get(classId), new int[]{id}));
+        }
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] union(int[] existing, int[] added) {
+        int[] result = existing;
+        for (int value : added) {
+            if (result.length == 0 || value > result[result.length - 1]) {
+                result = Arrays.copyOf(result, result.length + 1);
+                result[result.length - 1] = value;
+            } else if (Arrays.binarySearch(result, value) < 0) {
+                result = Arrays.copyOf(result, result.length + 1);
+                result[result.length - 1] = value;
+                Arrays.sort(result);
+            }
+        }
+        return result;
+    }
+
+    public List<Match> searchArtifacts(String query, int limit) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            collect(byCoordinates, query, ids, limit);
+            if (!query.contains(":")) {
+                collect(byArtifactId, query, ids, limit);
+            }
+            return ids.stream().map(id -> new Match(artifacts.get(id), List.of())).filter(this::exists).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Match> searchClasses(String query, int limit) {
+        Map<Integer, List<String>> matches = new HashMap<>();
+        List<Integer> order = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Integer> matchingClasses = new ArrayList<>();
+            if (query.contains(".")) {
+                Integer classId = classIds.get(query);
+                if (classId != null) {
+                    matchingClasses.add(classId);
+                }
+            } else {
+                String prefix = query.toLowerCase(Locale.ROOT);
+                for (int[] ids : bySimpleName.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                    Arrays.stream(ids).forEach(matchingClasses::add);
+                }
+            }
+            for (int classId : matchingClasses) {
+                for (int artifactId : classArtifacts.get(classId)) {
+                    if (!matches.containsKey(artifactId)) {
+                        if (order.size() >= limit) {
+                            continue;
+                        }
+                        order.add(artifactId);
+                    }
+                    matches.computeIfAbsent(artifactId, id -> new ArrayList<>()).add(classNames.get(classId));
+                }
+            }
+            return order.stream().map(id -> new Match(artifacts.get(id), matches.get(id))).filter(this::exists).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collect(TreeMap<String, int[]> index, String prefix, Set<Integer> ids, int limit) {
+        for (int[] values : index.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            for (int value : values) {
+                if (ids.size() >= limit) {
+                    return;
+                }
+                ids.add(value);
+            }
+        }
+    }
+
+    private boolean exists(Match match) {
+        Artifact artifact = match.artifact();
+        return storage.isDirectory(storageDirectory.resolve(artifact.repository()).resolve(artifact.groupId().replace('.', '/')).resolve(artifact.artifactId()).resolve(artifact.version()));
+    }
+
+    private void indexExistingFiles() {
+        long start = System.currentTimeMillis();
+        try {
+            for (Storage.Entry repository : storage.list(storageDirectory)) {
+                String name = repository.path().getFileName().toString();
+                if (repository.directory() && !name.startsWith(".")) {
+                    indexDirectory(name, repository.path());
+                }
+            }
+            save();
+            LOG.info("Indexed {} artifacts and {} classes in {} ms", artifacts.size(), classNames.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            LOG.error("Failed to build the search index", e);
+        }
+    }
+
+    private void indexDirectory(String repository, Path directory) throws IOException {
+        for (Storage.Entry entry : storage.list(directory)) {
+            if (entry.directory()) {
+                indexDirectory(repository, entry.path());
+            } else {
+                String path = storageDirectory.resolve(repository).relativize(entry.path().toAbsolutePath()).toString().replace('\\', '/');
+                if (path.endsWith(".pom") || path.endsWith(".jar")) {
+                    index(repository, path);
+                }
+            }
+        }
+    }
+
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Files.createDirectories(indexFile.getParent());
+        Path temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(artifacts.size());
+            for (Artifact artifact : artifacts) {
+                output.writeUTF(artifact.repository());
+                output.writeUTF(artifact.groupId());
+                output.writeUTF(artifact.artifactId());
+                output.writeUTF(artifact.version());
+            }
+            output.writeInt(classNames.size());
+            for (int classId = 0; classId < classNames.size(); classId++) {
+                output.writeUTF(classNames.get(classId));
+                int[] ids = classArtifacts.get(classId);
+                output.writeInt(ids.length);
+                for (int id : ids) {
+                    output.writeInt(id);
+                }
+            }
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            artifacts.clear();
+            artifactIds.clear();
+            byCoordinates.clear();
+            byArtifactId.clear();
+            classNames.clear();
+            classIds.clear();
+            classArtifacts.clear();
+            bySimpleName.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        lock.writeLock().lock();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown search index format");
+            }
+            int artifactCount = input.readInt();
+            for (int i = 0; i < artifactCount; i++) {
+                add(new Artifact(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF()), List.of());
+            }
+            int classCount = input.readInt();
+            for (int classId = 0; classId < classCount; classId++) {
+                String className = input.readUTF();
+                int[] ids = new int[input.readInt()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = input.readInt();
+                }
+                classNames.add(className);
+                classIds.put(className, classId);
+                classArtifacts.add(ids);
+                bySimpleName.merge(simpleName(className), new int[]{classId}, SearchIndex::union);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
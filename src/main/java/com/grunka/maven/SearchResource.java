@@ -0,0 +1,47 @@
+package com.grunka.maven;
+
+import com.grunka.maven.authentication.Access;
+import com.grunka.maven.authentication.User;
+import io.dropwizard.auth.Auth;
+import jakarta.annotation.security.PermitAll;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+
+@Path("/search")
+@PermitAll
+public class SearchResource {
+    private final SearchIndex searchIndex;
+    private final int maxResults;
+
+    public SearchResource(SearchIndex searchIndex, SearchConfiguration configuration) {
+        this.searchIndex = searchIndex;
+        this.maxResults = configuration.maxResults;
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<SearchIndex.Match> search(@QueryParam("q") String query, @QueryParam("class") String className, @QueryParam("limit") Integer limit, @Auth User user) {
+        if (user.getAccess().compareTo(Access.read) < 0) {
+            throw new WebApplicationException(Response.Status.UNAUTHORIZED);
+        }
+        int resultLimit = limit == null ? maxResults : Math.max(1, Math.min(limit, maxResults));
+        if (className != null && !className.isBlank()) {
+            return searchIndex.searchClasses(className.trim(), resultLimit);
+        }
+        if (query != null && !query.isBlank()) {
+            return searchIndex.searchArtifacts(query.trim(), resultLimit);
+        }
+        throw new WebApplicationException(Response
+                .status(Response.Status.BAD_REQUEST)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .entity("Either q or class is required")
+                .build());
+    }
+}
@@ -0,0 +1,231 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class ShardedStorage implements Storage {
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedStorage.class);
+    private final Path root;
+    private final List<Shard> shards;
+    private final List<Shard> locations;
+
+    private record Shard(Path root, Storage storage) {
+    }
+
+    public ShardedStorage(Path root, List<Path> shardRoots, Function<Path, Storage> storageForShard) {
+        this.root = normalize(root);
+        this.shards = shardRoots.stream().map(ShardedStorage::normalize).map(shardRoot -> new Shard(shardRoot, storageForShard.apply(shardRoot))).toList();
+        List<Shard> locations = new ArrayList<>(shards);
+        if (shards.stream().noneMatch(shard -> shard.root().equals(this.root))) {
+            locations.add(new Shard(this.root, storageForShard.apply(this.root)));
+        }
+        this.locations = List.copyOf(locations);
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    static String shardKey(Path relative) {
+        int names = relative.getNameCount();
+        if (names >= 5) {
+            return relative.subpath(1, names - 2).toString().replace('\\', '/');
+        }
+        return relative.getParent() == null ? "" : relative.getParent().toString().replace('\\', '/');
+    }
+
+    private Shard shardFor(Path relative) {
+        String key = shardKey(relative);
+        Shard selected = null;
+        long highestScore = Long.MIN_VALUE;
+        for (Shard shard : shards) {
+            long score = mix(((long) key.hashCode() << 32) ^ (shard.root().toString().hashCode() & 0xffffffffL));
+            if (selected == null || score > highestScore) {
+                selected = shard;
+                highestScore = score;
+            }
+        }
+        return selected;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private List<Shard> lookupOrder(Path relative) {
+        Shard primary = shardFor(relative);
+        List<Shard> order = new ArrayList<>(locations.size());
+        order.add(primary);
+        for (Shard location : locations) {
+            if (location != primary) {
+                order.add(location);
+            }
+        }
+        return order;
+    }
+
+    private Path relative(Path path) {
+        Path relative = root.relativize(normalize(path));
+        if (relative.startsWith("..")) {
+            throw new IllegalArgumentException(path + " is not inside of " + root);
+        }
+        return relative;
+    }
+
+    @Override
+    public boolean isFile(Path file) {
+        Path relative = relative(file);
+        return lookupOrder(relative).stream().anyMatch(shard -> shard.storage().isFile(shard.root().resolve(relative)));
+    }
+
+    @Override
+    public boolean isDirectory(Path directory) {
+        Path relative = relative(directory);
+        return locations.stream().anyMatch(shard -> shard.storage().isDirectory(shard.root().resolve(relative)));
+    }
+
+    @Override
+    public FileContent read(Path file) throws IOException {
+        Path relative = relative(file);
+        for (Shard shard : lookupOrder(relative)) {
+            Path physical = shard.root().resolve(relative);
+            if (shard.storage().isFile(physical)) {
+                FileContent content = shard.storage().read(physical);
+                return new FileContent(file, content.content(), content.lastModified(), content.sha1(), content.md5());
+            }
+        }
+        throw new NoSuchFileException(file.toString());
+    }
+
+    @Override
+    public SeekableByteChannel open(Path file) throws IOException {
+        Path relative = relative(file);
+        for (Shard shard : lookupOrder(relative)) {
+            Path physical = shard.root().resolve(relative);
+            if (shard.storage().isFile(physical)) {
+                return shard.storage().open(physical);
+            }
+        }
+        throw new NoSuchFileException(file.toString());
+    }
+
+    @Override
+    public void write(Path file, byte[] content, FileTime lastModified) throws IOException {
+        Path relative = relative(file);
+        List<Shard> order = lookupOrder(relative);
+        order.get(0).storage().write(order.get(0).root().resolve(relative), content, lastModified);
+        for (Shard shard : order.subList(1, order.size())) {
+            shard.storage().delete(shard.root().resolve(relative));
+        }
+    }
+
+    @Override
+    public void delete(Path file) throws IOException {
+        Path relative = relative(file);
+        for (Shard shard : locations) {
+            shard.storage().delete(shard.root().resolve(relative));
+        }
+    }
+
+    @Override
+    public List<Entry> list(Path directory) throws IOException {
+        Path relative = relative(directory);
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Shard shard : locations) {
+            for (Entry entry : shard.storage().list(shard.root().resolve(relative))) {
+                String name = entry.path().getFileName().toString();
+                Entry existing = entries.get(name);
+                if (existing == null || (entry.directory() && !existing.directory())) {
+                    entries.put(name, new Entry(directory.resolve(name), entry.directory(), entry.size(), entry.lastModified()));
+                }
+            }
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    public String rebalance() throws IOException {
+        long start = System.nanoTime();
+        LongAdder movedFiles = new LongAdder();
+        LongAdder movedBytes = new LongAdder();
+        LongAdder checkedFiles = new LongAdder();
+        for (Shard location : locations) {
+            if (!Files.isDirectory(location.root())) {
+                continue;
+            }
+            Files.walkFileTree(location.root(), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                    boolean otherLocation = locations.stream().anyMatch(other -> other != location && directory.equals(other.root()));
+                    if (otherLocation || (!directory.equals(location.root()) && directory.getFileName().toString().startsWith("."))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    Path relative = location.root().relativize(file);
+                    if (relative.getNameCount() < 2) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    checkedFiles.increment();
+                    Shard target = shardFor(relative);
+                    if (target != location) {
+                        move(file, target.root().resolve(relative));
+                        movedFiles.increment();
+                        movedBytes.add(attributes.size());
+                        if (movedFiles.sum() % 10_000 == 0) {
+                            LOG.info("Checked {} files and moved {} files, {} MB", checkedFiles.sum(), movedFiles.sum(), movedBytes.sum() >> 20);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        return String.format(Locale.ROOT, "checked %d files, moved %d files, %d MB in %.1f s", checkedFiles.sum(), movedFiles.sum(), movedBytes.sum() >> 20, seconds);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            Files.deleteIfExists(source);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Path temporaryFile = target.resolveSibling(target.getFileName() + ".rebalance");
+        try {
+            Files.copy(source, temporaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.createLink(target, temporaryFile);
+        } catch (FileAlreadyExistsException e) {
+            LOG.debug("{} was written while moving it, keeping the new file", target);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        Files.deleteIfExists(source);
+    }
+}
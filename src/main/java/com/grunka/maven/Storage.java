@@ -0,0 +1,30 @@
+package com.grunka.maven;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+public interface Storage {
+    boolean isFile(Path file);
+
+    boolean isDirectory(Path directory);
+
+    default boolean exists(Path path) {
+        return isFile(path) || isDirectory(path);
+    }
+
+    FileContent read(Path file) throws IOException;
+
+    SeekableByteChannel open(Path file) throws IOException;
+
+    void write(Path file, byte[] content, FileTime lastModified) throws IOException;
+
+    void delete(Path file) throws IOException;
+
+    List<Entry> list(Path directory) throws IOException;
+
+    record Entry(Path path, boolean directory, long size, FileTime lastModified) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class StorageConfiguration {
+    @NotNull
+    public List<String> shards = List.of();
+    public boolean packSmallFiles = false;
+    @NotNull
+    public DataSize maxPackedFileSize = DataSize.kibibytes(64);
+    @NotNull
+    public DataSize segmentSize = DataSize.mebibytes(64);
+    @NotNull
+    public Duration compactionInterval = Duration.minutes(10);
+    public double compactionThreshold = 0.5;
+    public String hotDirectory = null;
+    @NotNull
+    public DataSize hotCapacity = DataSize.gibibytes(10);
+    public double hotTargetFraction = 0.9;
+    public int promoteAfterReads = 2;
+    @NotNull
+    public Duration demotionInterval = Duration.minutes(1);
+}
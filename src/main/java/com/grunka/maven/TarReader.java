@@ -0,0 +1,86 @@
+package com.grunka.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+class TarReader {
+    private static final int BLOCK_SIZE = 512;
+
+    interface EntryConsumer {
+        void accept(String path, byte[] content, Instant lastModified) throws IOException;
+    }
+
+    static int read(InputStream input, EntryConsumer consumer) throws IOException {
+        int entries = 0;
+        while (true) {
+            byte[] header = input.readNBytes(BLOCK_SIZE);
+            if (header.length < BLOCK_SIZE || isEmpty(header)) {
+                return entries;
+            }
+            String name = string(header, 0, 100);
+            String prefix = "ustar".equals(string(header, 257, 5)) ? string(header, 345, 155) : "";
+            long size = octal(header, 124, 12);
+            Instant lastModified = Instant.ofEpochSecond(octal(header, 136, 12));
+            if (size > Integer.MAX_VALUE - BLOCK_SIZE) {
+                throw new IOException("Tar entry " + name + " is too large");
+            }
+            byte[] content = input.readNBytes((int) size);
+            if (content.length < size) {
+                throw new IOException("Tar entry " + name + " was truncated");
+            }
+            input.skipNBytes((BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE);
+            byte type = header[156];
+            if (type == '0' || type == 0) {
+                consumer.accept(entryName(prefix.isEmpty() ? name : prefix + "/" + name), content, lastModified);
+                entries++;
+            }
+        }
+    }
+
+    static String entryName(String name) throws IOException {
+        if (name.startsWith("/")) {
+            throw new IOException("Absolute tar entry name " + name);
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (String segment : name.split("/")) {
+            if (segment.equals("..")) {
+                throw new IOException("Tar entry name " + name + " leaves the target directory");
+            }
+            if (!segment.isEmpty() && !segment.equals(".")) {
+                normalized.append(normalized.length() == 0 ? "" : "/").append(segment);
+            }
+        }
+        if (normalized.length() == 0) {
+            throw new IOException("Empty tar entry name");
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isEmpty(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String string(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long octal(byte[] header, int offset, int length) throws IOException {
+        String value = string(header, offset, length).trim();
+        try {
+            return value.isEmpty() ? 0 : Long.parseLong(value, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid tar header number " + value, e);
+        }
+    }
+}
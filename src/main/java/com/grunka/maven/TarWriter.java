@@ -0,0 +1,62 @@
+package com.grunka.maven;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+class TarWriter implements AutoCloseable {
+    private static final int BLOCK_SIZE = 512;
+    private final OutputStream output;
+
+    TarWriter(OutputStream output) {
+        this.output = output;
+    }
+
+    void write(String path, byte[] content, Instant lastModified) throws IOException {
+        byte[] header = new byte[BLOCK_SIZE];
+        String name = path;
+        String prefix = "";
+        if (name.getBytes(StandardCharsets.UTF_8).length > 100) {
+            int split = path.indexOf('/', Math.max(0, path.length() - 101));
+            if (split < 0 || split > 155) {
+                throw new IOException("Path too long for tar entry " + path);
+            }
+            prefix = path.substring(0, split);
+            name = path.substring(split + 1);
+        }
+        field(header, 0, 100, name);
+        field(header, 100, 8, "0000644");
+        field(header, 108, 8, "0000000");
+        field(header, 116, 8, "0000000");
+        field(header, 124, 12, String.format("%011o", content.length));
+        field(header, 136, 12, String.format("%011o", lastModified.getEpochSecond()));
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = '0';
+        field(header, 257, 6, "ustar");
+        field(header, 263, 2, "00");
+        field(header, 345, 155, prefix);
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        field(header, 148, 8, String.format("%06o", checksum));
+        header[155] = ' ';
+        output.write(header);
+        output.write(content);
+        int padding = (BLOCK_SIZE - content.length % BLOCK_SIZE) % BLOCK_SIZE;
+        output.write(new byte[padding]);
+    }
+
+    private static void field(byte[] header, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.write(new byte[BLOCK_SIZE * 2]);
+        output.flush();
+    }
+}
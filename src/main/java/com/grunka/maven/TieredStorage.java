@@ -0,0 +1,191 @@
+package com.grunka.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class TieredStorage implements Storage {
+    private static final Logger LOG = LoggerFactory.getLogger(TieredStorage.class);
+    private static final int WRITE_STRIPES = 1024;
+    private final Path root;
+    private final Path hotRoot;
+    private final Storage cold;
+    private final Storage hot;
+    private final Executor promotionExecutor;
+    private final int promoteAfterReads;
+    private final long hotCapacity;
+    private final double targetFraction;
+    private final Map<Path, HotFile> hotFiles = new ConcurrentHashMap<>();
+    private final Map<Path, AtomicInteger> coldReads = new ConcurrentHashMap<>();
+    private final AtomicLongArray writeGenerations = new AtomicLongArray(WRITE_STRIPES);
+    private final AtomicLong hotBytes = new AtomicLong();
+
+    private record HotFile(long size, AtomicLong reads) {
+    }
+
+    public TieredStorage(Path root, Path hotRoot, Storage cold, Storage hot, Executor promotionExecutor, StorageConfiguration configuration) {
+        this.root = root.toAbsolutePath().normalize();
+        this.hotRoot = hotRoot.toAbsolutePath().normalize();
+        this.cold = cold;
+        this.hot = hot;
+        this.promotionExecutor = promotionExecutor;
+        this.promoteAfterReads = configuration.promoteAfterReads;
+        this.hotCapacity = configuration.hotCapacity.toBytes();
+        this.targetFraction = configuration.hotTargetFraction;
+    }
+
+    public void loadHotFiles() throws IOException {
+        if (!Files.isDirectory(hotRoot)) {
+            return;
+        }
+        Files.walkFileTree(hotRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                hotFiles.put(hotRoot.relativize(file), new HotFile(attributes.size(), new AtomicLong()));
+                hotBytes.addAndGet(attributes.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        LOG.info("Found {} hot files, {} bytes, in {}", hotFiles.size(), hotBytes.get(), hotRoot);
+    }
+
+    private Path relative(Path path) {
+        return root.relativize(path.toAbsolutePath().normalize());
+    }
+
+    @Override
+    public boolean isFile(Path file) {
+        return hotFiles.containsKey(relative(file)) || cold.isFile(file);
+    }
+
+    @Override
+    public boolean isDirectory(Path directory) {
+        return cold.isDirectory(directory);
+    }
+
+    @Override
+    public FileContent read(Path file) throws IOException {
+        Path relative = relative(file);
+        HotFile hotFile = hotFiles.get(relative);
+        if (hotFile != null) {
+            try {
+                FileContent content = hot.read(hotRoot.resolve(relative));
+                hotFile.reads().incrementAndGet();
+                return new FileContent(file, content.content(), content.lastModified(), content.sha1(), content.md5());
+            } catch (IOException e) {
+                LOG.warn("Could not read hot copy of {}, reading from cold storage", relative, e);
+                removeHot(relative);
+            }
+        }
+        long generation = writeGenerations.get(stripe(relative));
+        FileContent content = cold.read(file);
+        int reads = coldReads.computeIfAbsent(relative, r -> new AtomicInteger()).incrementAndGet();
+        if (reads >= promoteAfterReads) {
+            coldReads.remove(relative);
+            promote(relative, content, generation);
+        }
+        return content;
+    }
+
+    @Override
+    public SeekableByteChannel open(Path file) throws IOException {
+        return cold.open(file);
+    }
+
+    private void promote(Path relative, FileContent content, long generation) {
+        try {
+            promotionExecutor.execute(() -> {
+                Path hotFile = hotRoot.resolve(relative);
+                try {
+                    hot.write(hotFile, content.content(), content.lastModified());
+                    if (writeGenerations.get(stripe(relative)) != generation) {
+                        hot.delete(hotFile);
+                        return;
+                    }
+                    HotFile previous = hotFiles.put(relative, new HotFile(content.content().length, new AtomicLong(promoteAfterReads)));
+                    hotBytes.addAndGet(content.content().length - (previous == null ? 0 : previous.size()));
+                } catch (IOException e) {
+                    LOG.error("Failed to promote {} to {}", relative, hotRoot, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Skipping promotion of {}", relative);
+        }
+    }
+
+    private static int stripe(Path relative) {
+        return Math.floorMod(relative.hashCode(), WRITE_STRIPES);
+    }
+
+    private void removeHot(Path relative) throws IOException {
+        HotFile removed = hotFiles.remove(relative);
+        if (removed != null) {
+            hotBytes.addAndGet(-removed.size());
+        }
+        hot.delete(hotRoot.resolve(relative));
+    }
+
+    @Override
+    public void write(Path file, byte[] content, FileTime lastModified) throws IOException {
+        Path relative = relative(file);
+        writeGenerations.incrementAndGet(stripe(relative));
+        removeHot(relative);
+        cold.write(file, content, lastModified);
+        writeGenerations.incrementAndGet(stripe(relative));
+        removeHot(relative);
+    }
+
+    @Override
+    public void delete(Path file) throws IOException {
+        Path relative = relative(file);
+        writeGenerations.incrementAndGet(stripe(relative));
+        removeHot(relative);
+        cold.delete(file);
+    }
+
+    @Override
+    public List<Entry> list(Path directory) throws IOException {
+        return cold.list(directory);
+    }
+
+    public void demote() {
+        long targetBytes = (long) (hotCapacity * targetFraction);
+        if (hotBytes.get() > hotCapacity) {
+            List<Map.Entry<Path, HotFile>> candidates = new ArrayList<>(hotFiles.entrySet());
+            candidates.sort(Comparator.comparingLong(entry -> entry.getValue().reads().get()));
+            int demoted = 0;
+            for (Map.Entry<Path, HotFile> candidate : candidates) {
+                if (hotBytes.get() <= targetBytes) {
+                    break;
+                }
+                try {
+                    removeHot(candidate.getKey());
+                    demoted++;
+                } catch (IOException e) {
+                    LOG.error("Failed to demote {}", candidate.getKey(), e);
+                }
+            }
+            LOG.info("Demoted {} files, hot tier now uses {} of {} bytes", demoted, hotBytes.get(), hotCapacity);
+        }
+        hotFiles.values().forEach(hotFile -> hotFile.reads().updateAndGet(reads -> reads / 2));
+        coldReads.values().removeIf(reads -> reads.updateAndGet(count -> count / 2) == 0);
+    }
+}
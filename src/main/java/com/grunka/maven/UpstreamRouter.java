@@ -0,0 +1,77 @@
+package com.grunka.maven;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class UpstreamRouter {
+    private final LinkedHashMap<String, Repository> remoteRepositories;
+    private final List<Route> routes = new ArrayList<>();
+    private final int maxLearnedRoutes;
+    private final Map<String, String> learnedRoutes = new ConcurrentHashMap<>();
+
+    private record Route(String prefix, List<String> remotes) {
+    }
+
+    public UpstreamRouter(LinkedHashMap<String, Repository> remoteRepositories, Map<String, List<String>> routes, int maxLearnedRoutes) {
+        this.remoteRepositories = remoteRepositories;
+        this.maxLearnedRoutes = maxLearnedRoutes;
+        for (Map.Entry<String, List<String>> route : routes.entrySet()) {
+            for (String remote : route.getValue()) {
+                if (!remoteRepositories.containsKey(remote)) {
+                    throw new IllegalStateException("Route " + route.getKey() + " refers to unknown remote repository " + remote);
+                }
+            }
+            String prefix = route.getKey().contains("/") ? route.getKey() : route.getKey().replace('.', '/') + "/";
+            this.routes.add(new Route(prefix.startsWith("/") ? prefix.substring(1) : prefix, List.copyOf(route.getValue())));
+        }
+        this.routes.sort(Comparator.comparingInt((Route r) -> r.prefix().length()).reversed());
+    }
+
+    public LinkedHashMap<String, Repository> remotesFor(ArtifactPath path) {
+        String directoryPath = path.path().endsWith("/") ? path.path() : path.path() + "/";
+        LinkedHashMap<String, Repository> remotes = new LinkedHashMap<>();
+        String learnedRemote = learnedRemote(path.groupPath());
+        if (learnedRemote != null && isAllowed(directoryPath, learnedRemote)) {
+            remotes.put(learnedRemote, remoteRepositories.get(learnedRemote));
+        }
+        for (Map.Entry<String, Repository> remote : remoteRepositories.entrySet()) {
+            if (isAllowed(directoryPath, remote.getKey())) {
+                remotes.putIfAbsent(remote.getKey(), remote.getValue());
+            }
+        }
+        return remotes;
+    }
+
+    public void served(ArtifactPath path, String remote) {
+        String groupPath = path.groupPath();
+        if (groupPath == null || (learnedRoutes.size() >= maxLearnedRoutes && !learnedRoutes.containsKey(groupPath))) {
+            return;
+        }
+        learnedRoutes.put(groupPath, remote);
+    }
+
+    private boolean isAllowed(String directoryPath, String remote) {
+        for (Route route : routes) {
+            if (directoryPath.startsWith(route.prefix())) {
+                return route.remotes().contains(remote);
+            }
+        }
+        return true;
+    }
+
+    private String learnedRemote(String groupPath) {
+        while (groupPath != null) {
+            String remote = learnedRoutes.get(groupPath);
+            if (remote != null) {
+                return remote;
+            }
+            int lastSlash = groupPath.lastIndexOf('/');
+            groupPath = lastSlash > 0 ? groupPath.substring(0, lastSlash) : null;
+        }
+        return null;
+    }
+}
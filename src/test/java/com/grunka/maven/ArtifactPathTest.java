@@ -0,0 +1,90 @@
+package com.grunka.maven;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ArtifactPathTest {
+    @Test
+    public void shouldParseReleaseArtifact() {
+        ArtifactPath path = ArtifactPath.parse("/com/example/lib/1.2.3/lib-1.2.3.jar");
+        assertEquals("com/example/lib/1.2.3/lib-1.2.3.jar", path.path());
+        assertEquals("com.example", path.groupId());
+        assertEquals("com/example", path.groupPath());
+        assertEquals("lib", path.artifactId());
+        assertEquals("1.2.3", path.version());
+        assertNull(path.classifier());
+        assertEquals("jar", path.extension());
+        assertNull(path.checksum());
+        assertFalse(path.snapshot());
+        assertFalse(path.metadata());
+    }
+
+    @Test
+    public void shouldParseClassifierAndChecksum() {
+        ArtifactPath path = ArtifactPath.parse("com/example/lib/1.2.3/lib-1.2.3-sources.jar.sha1");
+        assertEquals("sources", path.classifier());
+        assertEquals("jar", path.extension());
+        assertEquals(".sha1", path.checksum());
+        assertEquals("lib-1.2.3-sources.jar", path.withoutChecksum().fileName());
+    }
+
+    @Test
+    public void shouldParseSnapshots() {
+        ArtifactPath plain = ArtifactPath.parse("com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT-tests.jar");
+        assertTrue(plain.snapshot());
+        assertEquals("1.0-SNAPSHOT", plain.version());
+        assertEquals("tests", plain.classifier());
+        ArtifactPath timestamped = ArtifactPath.parse("com/example/lib/1.0-SNAPSHOT/lib-1.0-20240101.120000-3-sources.jar");
+        assertTrue(timestamped.snapshot());
+        assertEquals("sources", timestamped.classifier());
+        ArtifactPath withoutClassifier = ArtifactPath.parse("com/example/lib/1.0-SNAPSHOT/lib-1.0-20240101.120000-3.pom");
+        assertNull(withoutClassifier.classifier());
+        assertEquals("pom", withoutClassifier.extension());
+    }
+
+    @Test
+    public void shouldParseMetadata() {
+        ArtifactPath artifactMetadata = ArtifactPath.parse("com/example/lib/maven-metadata.xml.md5");
+        assertTrue(artifactMetadata.metadata());
+        assertEquals(".md5", artifactMetadata.checksum());
+        assertEquals("com.example", artifactMetadata.groupId());
+        assertEquals("com/example", artifactMetadata.groupPath());
+        assertEquals("lib", artifactMetadata.artifactId());
+        assertNull(artifactMetadata.version());
+        assertFalse(artifactMetadata.snapshot());
+        ArtifactPath snapshotMetadata = ArtifactPath.parse("com/example/lib/1.0-SNAPSHOT/maven-metadata.xml");
+        assertTrue(snapshotMetadata.metadata());
+        assertTrue(snapshotMetadata.snapshot());
+        assertEquals("com.example", snapshotMetadata.groupId());
+        assertEquals("com/example", snapshotMetadata.groupPath());
+        assertEquals("lib", snapshotMetadata.artifactId());
+        assertEquals("1.0-SNAPSHOT", snapshotMetadata.version());
+    }
+
+    @Test
+    public void shouldRejectTraversal() {
+        assertThrows(IllegalArgumentException.class, () -> ArtifactPath.parse("../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> ArtifactPath.parse("com/../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> ArtifactPath.parse("com/./lib"));
+        assertThrows(IllegalArgumentException.class, () -> ArtifactPath.parse("//etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> ArtifactPath.parse("com//lib"));
+        assertThrows(IllegalArgumentException.class, () -> ArtifactPath.parse("com\\..\\lib"));
+    }
+
+    @Test
+    public void shouldResolveInsideRepository() {
+        Path repository = Path.of("/storage/central");
+        ArtifactPath path = ArtifactPath.parse("com/example/lib/1.2.3/lib-1.2.3.pom");
+        assertEquals(Path.of("/storage/central/com/example/lib/1.2.3/lib-1.2.3.pom"), path.resolve(repository));
+        assertSame(path.resolve(repository), path.resolve(repository));
+        assertEquals(repository, ArtifactPath.parse("").resolve(repository));
+    }
+}
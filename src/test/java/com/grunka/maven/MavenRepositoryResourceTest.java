@@ -0,0 +1,104 @@
+package com.grunka.maven;
+
+import com.grunka.maven.authentication.Access;
+import com.grunka.maven.authentication.User;
+import io.dropwizard.util.Duration;
+import jakarta.ws.rs.core.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MavenRepositoryResourceTest {
+    private static final String SNAPSHOT_PATH = "com/example/app/1.0-SNAPSHOT/app-1.0-20261019.101010-1.jar";
+    private static final String STORED_SNAPSHOT_PATH = "com/example/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.jar";
+    private final User user = new User("deployer", Access.write);
+    private Path storageDirectory;
+    private Storage storage;
+    private MavenRepositoryResource resource;
+
+    @Before
+    public void setUp() throws IOException {
+        storageDirectory = Files.createTempDirectory("repository");
+        storage = new FileStorage(null);
+        resource = new MavenRepositoryResource(storageDirectory, storage, new UpstreamRouter(new LinkedHashMap<>(), Map.of(), 10), new ResourceLoader(), new MetadataGenerator(MavenRepositoryResource.HTTP_CLIENT, storage, Duration.minutes(1)));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(storageDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private Response deploy(String path, byte[] content) {
+        return resource.put(path, (long) content.length, new ByteArrayInputStream(content), user);
+    }
+
+    @Test
+    public void shouldReplicateSnapshotsUnderTheStoredPath() throws IOException {
+        ReplicationOutbox replicationOutbox = new ReplicationOutbox(storageDirectory.resolve(".replication"), Set.of("follower"));
+        replicationOutbox.start();
+        resource.setReplicationOutbox(replicationOutbox);
+        try {
+            assertEquals(201, deploy(SNAPSHOT_PATH, new byte[]{1, 2, 3}).getStatus());
+            List<ReplicationOutbox.Entry> entries = replicationOutbox.after(0, 10);
+            assertEquals(1, entries.size());
+            assertEquals(STORED_SNAPSHOT_PATH, entries.get(0).path());
+            assertTrue(storage.isFile(storageDirectory.resolve(MavenRepositoryResource.LOCAL).resolve(entries.get(0).path())));
+        } finally {
+            replicationOutbox.stop();
+        }
+    }
+
+    @Test
+    public void shouldPublishSnapshotsUnderTheStoredPath() throws IOException {
+        ChangeFeed changeFeed = new ChangeFeed(storageDirectory.resolve(".changes"), new ChangeFeedConfiguration());
+        changeFeed.start();
+        resource.setChangeFeed(changeFeed);
+        try {
+            assertEquals(201, deploy(SNAPSHOT_PATH, new byte[]{1, 2, 3}).getStatus());
+            List<ChangeFeed.Change> changes = changeFeed.since(0, 10);
+            assertEquals(1, changes.size());
+            assertEquals(STORED_SNAPSHOT_PATH, changes.get(0).path());
+            assertTrue(storage.isFile(storageDirectory.resolve(changes.get(0).repository()).resolve(changes.get(0).path())));
+        } finally {
+            changeFeed.stop();
+        }
+    }
+
+    @Test
+    public void shouldIndexClassesOfSnapshots() throws IOException {
+        SearchIndex searchIndex = new SearchIndex(storageDirectory, storage, Runnable::run);
+        resource.setSearchIndex(searchIndex);
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(jar)) {
+            zip.putNextEntry(new ZipEntry("com/example/App.class"));
+            zip.write(new byte[]{(byte) 0xca, (byte) 0xfe, (byte) 0xba, (byte) 0xbe});
+            zip.closeEntry();
+        }
+        assertEquals(201, deploy(SNAPSHOT_PATH, jar.toByteArray()).getStatus());
+        List<SearchIndex.Match> matches = searchIndex.searchClasses("App", 10);
+        assertEquals(1, matches.size());
+        assertEquals("1.0-SNAPSHOT", matches.get(0).artifact().version());
+        assertEquals(List.of("com.example.App"), matches.get(0).classes());
+    }
+}
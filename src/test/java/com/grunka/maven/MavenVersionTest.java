@@ -0,0 +1,61 @@
+package com.grunka.maven;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MavenVersionTest {
+    private static int compare(String first, String second) {
+        return Integer.signum(MavenVersion.COMPARATOR.compare(first, second));
+    }
+
+    @Test
+    public void shouldOrderNumbersNumerically() {
+        assertEquals(-1, compare("1.2", "1.10"));
+        assertEquals(-1, compare("1.9.9", "1.10"));
+        assertEquals(1, compare("2", "1.999"));
+    }
+
+    @Test
+    public void shouldOrderQualifiersBeforeRelease() {
+        List<String> versions = new ArrayList<>(List.of("1.0", "1.0-sp1", "1.0-SNAPSHOT", "1.0-rc1", "1.0-beta2", "1.0-alpha1", "1.0-m1", "1.1"));
+        versions.sort(MavenVersion.COMPARATOR);
+        assertEquals(List.of("1.0-alpha1", "1.0-beta2", "1.0-m1", "1.0-rc1", "1.0-SNAPSHOT", "1.0", "1.0-sp1", "1.1"), versions);
+    }
+
+    @Test
+    public void shouldTreatEquivalentVersionsAsEqual() {
+        assertEquals(0, compare("1.0", "1"));
+        assertEquals(0, compare("1.0.0", "1"));
+        assertEquals(0, compare("1-ga", "1"));
+        assertEquals(0, compare("1.0-final", "1"));
+        assertEquals(0, compare("1-a1", "1-alpha-1"));
+    }
+
+    @Test
+    public void shouldOrderUnknownQualifiersAfterKnownOnes() {
+        assertEquals(1, compare("1.0-foo", "1.0-sp"));
+        assertEquals(-1, compare("1.0-bar", "1.0-foo"));
+    }
+
+    @Test
+    public void shouldRecognizeSnapshots() {
+        assertTrue(MavenVersion.isSnapshot("1.0-SNAPSHOT"));
+        assertFalse(MavenVersion.isSnapshot("1.0"));
+    }
+
+    @Test
+    public void shouldKeepEquivalentVersionsWhenMerging() {
+        MavenMetadata first = new MavenMetadata("g", "a", null, List.of("1", "1.1", "2.0-SNAPSHOT"), null, null, null, List.of(), List.of());
+        MavenMetadata second = new MavenMetadata("g", "a", null, List.of("1.0", "1-1", "1.1"), null, "1.1", null, List.of(), List.of());
+        MavenMetadata merged = MavenMetadata.merge("g", "a", List.of(first, second));
+        assertEquals(List.of("1", "1.0", "1-1", "1.1", "2.0-SNAPSHOT"), merged.versions());
+        assertEquals("1.1", merged.release());
+        assertEquals("2.0-SNAPSHOT", merged.latest());
+    }
+}
@@ -0,0 +1,140 @@
+package com.grunka.maven;
+
+import io.dropwizard.util.DataSize;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackedStorageTest {
+    private Path root;
+    private Path segmentDirectory;
+    private StorageConfiguration configuration;
+    private PackedStorage storage;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("packed-storage");
+        segmentDirectory = root.resolve(".segments");
+        configuration = new StorageConfiguration();
+        configuration.segmentSize = DataSize.bytes(512);
+        storage = start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        storage.stop();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private PackedStorage start() throws IOException {
+        PackedStorage packedStorage = new PackedStorage(root, segmentDirectory, new FileStorage(null), configuration);
+        packedStorage.start();
+        return packedStorage;
+    }
+
+    private Path pom(int i) {
+        return root.resolve("releases/com/example/a" + i + "/1.0/a" + i + "-1.0.pom");
+    }
+
+    private static byte[] content(int i, String version) {
+        return ("<project>" + i + " " + version + "</project>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> segments = Files.list(segmentDirectory)) {
+            return segments.count();
+        }
+    }
+
+    @Test
+    public void shouldPackSmallFilesAndKeepLargeOnesPlain() throws IOException {
+        Path pom = pom(1);
+        Path jar = pom.resolveSibling("a1-1.0.jar");
+        storage.write(pom, content(1, "first"), FileTime.fromMillis(1000));
+        storage.write(jar, new byte[100], null);
+        assertTrue(storage.isFile(pom));
+        assertFalse(Files.exists(pom));
+        assertTrue(Files.exists(jar));
+        FileContent read = storage.read(pom);
+        assertArrayEquals(content(1, "first"), read.content());
+        assertEquals(FileTime.fromMillis(1000), read.lastModified());
+        assertEquals(2, storage.list(pom.getParent()).size());
+    }
+
+    @Test
+    public void shouldReplacePlainCopyWhenPacking() throws IOException {
+        Path pom = pom(1);
+        Files.createDirectories(pom.getParent());
+        Files.write(pom, content(1, "plain"));
+        storage.write(pom, content(1, "packed"), null);
+        assertFalse(Files.exists(pom));
+        assertArrayEquals(content(1, "packed"), storage.read(pom).content());
+    }
+
+    @Test
+    public void shouldReloadAcrossSegments() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            storage.write(pom(i), content(i, "first"), null);
+        }
+        storage.write(pom(3), content(3, "second"), null);
+        storage.delete(pom(4));
+        assertTrue(segmentCount() > 1);
+        storage.stop();
+        storage = start();
+        for (int i = 0; i < 20; i++) {
+            if (i == 4) {
+                assertFalse(storage.isFile(pom(i)));
+            } else {
+                assertArrayEquals(content(i, i == 3 ? "second" : "first"), storage.read(pom(i)).content());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCompactSparseSegments() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            storage.write(pom(i), content(i, "first"), null);
+        }
+        for (int i = 0; i < 20; i++) {
+            if (i % 4 == 0) {
+                storage.write(pom(i), content(i, "second"), null);
+            } else if (i % 4 != 1) {
+                storage.delete(pom(i));
+            }
+        }
+        long segmentsBefore = segmentCount();
+        storage.compact();
+        assertTrue(segmentCount() < segmentsBefore);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i % 4 < 2, storage.isFile(pom(i)));
+            if (i % 4 < 2) {
+                assertArrayEquals(content(i, i % 4 == 0 ? "second" : "first"), storage.read(pom(i)).content());
+            }
+        }
+        storage.stop();
+        storage = start();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i % 4 < 2, storage.isFile(pom(i)));
+            if (i % 4 < 2) {
+                assertArrayEquals(content(i, i % 4 == 0 ? "second" : "first"), storage.read(pom(i)).content());
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.grunka.maven;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class TarReaderTest {
+    private record Entry(String path, byte[] content, Instant lastModified) {
+    }
+
+    @Test
+    public void shouldReadWhatWasWritten() throws IOException {
+        String longPath = "com/example/" + "very-long-group-name/".repeat(6) + "artifact/1.0/artifact-1.0.jar";
+        Instant lastModified = Instant.parse("2024-01-02T03:04:05Z");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (TarWriter tarWriter = new TarWriter(output)) {
+            tarWriter.write("org/b/b/2.0/b-2.0.pom", "<project/>".getBytes(StandardCharsets.UTF_8), lastModified);
+            tarWriter.write(longPath, new byte[1000], lastModified);
+            tarWriter.write("org/b/b/2.0/empty.jar", new byte[0], lastModified);
+        }
+        List<Entry> entries = new ArrayList<>();
+        int count = TarReader.read(new ByteArrayInputStream(output.toByteArray()), (path, content, modified) -> entries.add(new Entry(path, content, modified)));
+        assertEquals(3, count);
+        assertEquals("org/b/b/2.0/b-2.0.pom", entries.get(0).path());
+        assertArrayEquals("<project/>".getBytes(StandardCharsets.UTF_8), entries.get(0).content());
+        assertEquals(lastModified, entries.get(0).lastModified());
+        assertEquals(longPath, entries.get(1).path());
+        assertEquals(1000, entries.get(1).content().length);
+        assertEquals(0, entries.get(2).content().length);
+    }
+
+    @Test
+    public void shouldNormalizeEntryNames() throws IOException {
+        assertEquals("org/b/b-2.0.pom", TarReader.entryName("./org//b/./b-2.0.pom"));
+    }
+
+    @Test
+    public void shouldRejectEntriesOutsideOfTarget() throws IOException {
+        assertThrows(IOException.class, () -> TarReader.entryName("../../etc/x"));
+        assertThrows(IOException.class, () -> TarReader.entryName("org/../../x"));
+        assertThrows(IOException.class, () -> TarReader.entryName("/etc/x"));
+        assertThrows(IOException.class, () -> TarReader.entryName("./"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (TarWriter tarWriter = new TarWriter(output)) {
+            tarWriter.write("../../etc/x", new byte[1], Instant.now());
+        }
+        assertThrows(IOException.class, () -> TarReader.read(new ByteArrayInputStream(output.toByteArray()), (path, content, modified) -> {
+        }));
+    }
+}
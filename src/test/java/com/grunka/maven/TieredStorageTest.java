@@ -0,0 +1,85 @@
+package com.grunka.maven;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TieredStorageTest {
+    private Path directory;
+    private Path root;
+    private Path hotRoot;
+    private boolean failColdWrites = false;
+    private TieredStorage storage;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiered-storage");
+        root = directory.resolve("storage");
+        hotRoot = directory.resolve("hot");
+        FileStorage cold = new FileStorage(null) {
+            @Override
+            public void write(Path file, byte[] content, FileTime lastModified) throws IOException {
+                if (failColdWrites) {
+                    throw new IOException("Cold storage is failing");
+                }
+                super.write(file, content, lastModified);
+            }
+        };
+        storage = new TieredStorage(root, hotRoot, cold, new FileStorage(null), Runnable::run, new StorageConfiguration());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static byte[] content(String version) {
+        return ("<project>" + version + "</project>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldPromoteAfterRepeatedReads() throws IOException {
+        Path pom = root.resolve("local/com/example/a/1.0/a-1.0.pom");
+        storage.write(pom, content("first"), null);
+        storage.read(pom);
+        storage.read(pom);
+        assertTrue(Files.exists(hotRoot.resolve("local/com/example/a/1.0/a-1.0.pom")));
+        assertArrayEquals(content("first"), storage.read(pom).content());
+    }
+
+    @Test
+    public void shouldNotLeaveStaleHotCopyWhenColdWriteFails() throws IOException {
+        Path pom = root.resolve("local/com/example/a/1.0/a-1.0.pom");
+        Path hotPom = hotRoot.resolve("local/com/example/a/1.0/a-1.0.pom");
+        storage.write(pom, content("first"), null);
+        storage.read(pom);
+        storage.read(pom);
+        assertTrue(Files.exists(hotPom));
+        failColdWrites = true;
+        try {
+            storage.write(pom, content("second"), null);
+            fail("Expected the cold write to fail");
+        } catch (IOException e) {
+            assertFalse(Files.exists(hotPom));
+        }
+        storage.loadHotFiles();
+        assertArrayEquals(content("first"), storage.read(pom).content());
+    }
+}